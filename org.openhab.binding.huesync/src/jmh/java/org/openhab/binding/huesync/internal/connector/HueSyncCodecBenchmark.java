@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncState;
+import org.openhab.binding.huesync.internal.HueSyncStateSnapshot;
+import org.openhab.binding.huesync.internal.RecordingStateChangedListener;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Input;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Intensity;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Mode;
+import org.openhab.core.types.State;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * JMH benchmarks of the poll decoding, the state diffing, the command encoding and the channel lookup.
+ *
+ * They are not part of the unit tests. The <code>jmh</code> profile compiles and runs them with the GC profiler,
+ * which reports the bytes allocated per operation: <code>mvn -P jmh test</code>.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HueSyncCodecBenchmark {
+
+    // recorded from a box with firmware 1.12
+    private static final String EXECUTION = "{\"mode\":\"video\",\"syncActive\":true,\"hdmiActive\":true,"
+            + "\"hdmiSource\":\"input1\",\"hueTarget\":\"groups/7\",\"brightness\":%d,\"lastSyncMode\":\"video\","
+            + "\"video\":{\"intensity\":\"high\",\"backgroundLighting\":false},"
+            + "\"game\":{\"intensity\":\"moderate\",\"backgroundLighting\":false},"
+            + "\"music\":{\"intensity\":\"subtle\",\"palette\":\"happyEnergetic\"},"
+            + "\"preset\":null,\"ambilight\":{\"timeout\":3600}}";
+
+    private final HueSyncStateDecoder decoder = new HueSyncStateDecoder();
+    // the snapshots are not recorded, so the changed polls do not fill the heap
+    private final HueSyncState state = new HueSyncState(new RecordingStateChangedListener() {
+        @Override
+        public void stateChanged(HueSyncStateSnapshot previous, HueSyncStateSnapshot current) {
+        }
+    });
+    private final String[] documents = { String.format(EXECUTION, 100), String.format(EXECUTION, 102) };
+    private final HueSyncExecutionCommand command = new HueSyncExecutionCommand().withHdmiActive(true)
+            .withSyncActive(true).withMode(Mode.MUSIC).withIntensity(Intensity.INTENSE).withInput(Input.INPUT2)
+            .withEntertainmentArea("7");
+    private final ByteBuffer buffer = ByteBuffer.allocate(HueSyncExecutionCommand.MAX_ENCODED_LENGTH);
+    private String[] channelIds = new String[0];
+    private HueSyncStateSnapshot snapshot = HueSyncStateSnapshot.EMPTY;
+    private int iteration;
+
+    @Setup
+    public void setUp() throws IOException {
+        decoder.decodeExecution(new JsonReader(new StringReader(documents[0])), state);
+        state.publishPolled();
+        snapshot = state.getSnapshot();
+
+        HueSyncChannel[] channels = HueSyncChannel.values();
+        channelIds = new String[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            channelIds[i] = channels[i].getChannelId();
+        }
+    }
+
+    @Benchmark
+    public HueSyncStateSnapshot decodeUnchangedPoll() throws IOException {
+        decoder.decodeExecution(new JsonReader(new StringReader(documents[0])), state);
+        state.publishPolled();
+        return state.getSnapshot();
+    }
+
+    @Benchmark
+    public HueSyncStateSnapshot decodeChangedPoll() throws IOException {
+        decoder.decodeExecution(new JsonReader(new StringReader(documents[++iteration & 1])), state);
+        state.publishPolled();
+        return state.getSnapshot();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeCommand() {
+        command.withBrightness(++iteration & 0xff);
+        command.encode(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public @Nullable State lookupStateByChannelId() {
+        return snapshot.getStateForChannelID(channelIds[++iteration % channelIds.length]);
+    }
+}
@@ -28,12 +28,38 @@ public class HueSyncBindingConstants {
 
     // List of all Thing Type UIDs
     public static final ThingTypeUID THING_TYPE_SYNCBOX = new ThingTypeUID(BINDING_ID, "box");
+    public static final ThingTypeUID THING_TYPE_SYNCGROUP = new ThingTypeUID(BINDING_ID, "group");
 
     // List of thing parameters
     public static final String PARAMETER_HOST = "host";
     public static final String PARAMETER_POLLING_INTERVAL = "httpPollingInterval";
+    public static final String PARAMETER_HDMI_POLLING_INTERVAL = "hdmiPollingInterval";
+    public static final String PARAMETER_POLLING_MODE = "pollingMode";
+    public static final String PARAMETER_MIN_POLLING_INTERVAL = "minPollingInterval";
+    public static final String PARAMETER_MAX_POLLING_INTERVAL = "maxPollingInterval";
+    public static final String PARAMETER_FAILURE_THRESHOLD = "failureThreshold";
+    public static final String PARAMETER_CIRCUIT_OPEN_DURATION = "circuitOpenDuration";
+    public static final String PARAMETER_MAX_CIRCUIT_OPEN_DURATION = "maxCircuitOpenDuration";
+    public static final String PARAMETER_DIFFERENTIAL_FETCH = "differentialFetch";
+    public static final String PARAMETER_METRICS_EXPORT = "metricsExport";
+    public static final String PARAMETER_COMMAND_BATCH_WINDOW = "commandBatchWindow";
+    public static final String PARAMETER_VIRTUAL_THREADS = "virtualThreads";
+    public static final String PARAMETER_REQUEST_RATE = "requestRate";
+    public static final String PARAMETER_REQUEST_BURST = "requestBurst";
     public static final String PARAMETER_API_ACCESS_TOKEN = "apiAccessToken";
 
+    // List of group parameters
+    public static final String PARAMETER_BOXES = "boxes";
+    public static final String PARAMETER_MAX_CONCURRENCY = "maxConcurrency";
+
+    // List of thing properties
+    public static final String PROPERTY_DEVICE_NAME = "deviceName";
+    public static final String PROPERTY_HOSTNAME = "hostname";
+    public static final String PROPERTY_IP_ADDRESSES = "ipAddresses";
+    public static final String PROPERTY_API_LEVEL = "apiLevel";
+    public static final String PROPERTY_MAX_IR_CODES = "maxIrCodes";
+    public static final String PROPERTY_MAX_PRESETS = "maxPresets";
+
     // List of all basic channels
     public static final String CHANNEL_POWER = "power";
     public static final String CHANNEL_MODE = "mode";
@@ -41,6 +67,28 @@ public class HueSyncBindingConstants {
     public static final String CHANNEL_BRIGHTNESS = "brightness";
     public static final String CHANNEL_INPUT = "input";
     public static final String CHANNEL_SYNCSTATUS = "syncStatus";
+    public static final String CHANNEL_ENTERTAINMENT_AREA = "entertainmentArea";
+
+    // List of all group result channels
+    public static final String CHANNEL_COMMAND_SUCCEEDED = "commandSucceeded";
+    public static final String CHANNEL_COMMAND_FAILED = "commandFailed";
+    public static final String CHANNEL_COMMAND_LATENCY = "commandLatency";
+
+    // List of all advanced statistics channels
+    public static final String CHANNEL_POLL_LATENCY = "pollLatency";
+    public static final String CHANNEL_EXECUTION_LATENCY = "executionLatency";
+    public static final String CHANNEL_DECODE_TIME = "decodeTime";
+    public static final String CHANNEL_POLL_QUEUE_LATENCY = "pollQueueLatency";
+    public static final String CHANNEL_POLL_QUEUE_LATENCY_MAX = "pollQueueLatencyMax";
+    public static final String CHANNEL_REQUESTS = "requests";
+    public static final String CHANNEL_ERRORS = "errors";
+    public static final String CHANNEL_TIMEOUTS = "timeouts";
+    public static final String CHANNEL_RECONNECTS = "reconnects";
+    public static final String CHANNEL_FETCHES_CHANGED = "fetchesChanged";
+    public static final String CHANNEL_FETCHES_UNCHANGED = "fetchesUnchanged";
+    public static final String CHANNEL_POLLS_SHED = "pollsShed";
+    public static final String CHANNEL_COMMANDS_DELAYED = "commandsDelayed";
+    public static final String CHANNEL_CONNECTION_POOL = "connectionPool";
 
     // List of all advanced i/o channels
     public static final String CHANNEL_OUTPUT_NAME = "outputName";
@@ -50,7 +98,7 @@ public class HueSyncBindingConstants {
 
     public static final String CHANNEL_INPUT1_NAME = "input1Name";
     public static final String CHANNEL_INPUT1_TYPE = "input1Type";
-    public static final String CHANNEL_INPUT1_STATUS = "input1tatus";
+    public static final String CHANNEL_INPUT1_STATUS = "input1Status";
     public static final String CHANNEL_INPUT1_LASTMODE = "input1LastMode";
 
     public static final String CHANNEL_INPUT2_NAME = "input2Name";
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import static org.openhab.binding.huesync.internal.HueSyncBindingConstants.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link HueSyncChannel} enumerates the channels of the huesync-box together with the kind of value
+ * they hold. The ordinal is used as slot index by the {@link HueSyncState}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public enum HueSyncChannel {
+    POWER(CHANNEL_POWER, ValueType.SWITCH),
+    MODE(CHANNEL_MODE, ValueType.STRING),
+    INTENSITY(CHANNEL_INTENSITY, ValueType.STRING),
+    BRIGHTNESS(CHANNEL_BRIGHTNESS, ValueType.PERCENT),
+    INPUT(CHANNEL_INPUT, ValueType.STRING),
+    SYNC_STATUS(CHANNEL_SYNCSTATUS, ValueType.SWITCH),
+    ENTERTAINMENT_AREA(CHANNEL_ENTERTAINMENT_AREA, ValueType.STRING),
+
+    INPUT1_NAME(CHANNEL_INPUT1_NAME, ValueType.STRING),
+    INPUT1_TYPE(CHANNEL_INPUT1_TYPE, ValueType.STRING),
+    INPUT1_STATUS(CHANNEL_INPUT1_STATUS, ValueType.STRING),
+    INPUT1_LASTMODE(CHANNEL_INPUT1_LASTMODE, ValueType.STRING),
+
+    INPUT2_NAME(CHANNEL_INPUT2_NAME, ValueType.STRING),
+    INPUT2_TYPE(CHANNEL_INPUT2_TYPE, ValueType.STRING),
+    INPUT2_STATUS(CHANNEL_INPUT2_STATUS, ValueType.STRING),
+    INPUT2_LASTMODE(CHANNEL_INPUT2_LASTMODE, ValueType.STRING),
+
+    INPUT3_NAME(CHANNEL_INPUT3_NAME, ValueType.STRING),
+    INPUT3_TYPE(CHANNEL_INPUT3_TYPE, ValueType.STRING),
+    INPUT3_STATUS(CHANNEL_INPUT3_STATUS, ValueType.STRING),
+    INPUT3_LASTMODE(CHANNEL_INPUT3_LASTMODE, ValueType.STRING),
+
+    INPUT4_NAME(CHANNEL_INPUT4_NAME, ValueType.STRING),
+    INPUT4_TYPE(CHANNEL_INPUT4_TYPE, ValueType.STRING),
+    INPUT4_STATUS(CHANNEL_INPUT4_STATUS, ValueType.STRING),
+    INPUT4_LASTMODE(CHANNEL_INPUT4_LASTMODE, ValueType.STRING),
+
+    OUTPUT_NAME(CHANNEL_OUTPUT_NAME, ValueType.STRING),
+    OUTPUT_TYPE(CHANNEL_OUTPUT_TYPE, ValueType.STRING),
+    OUTPUT_STATUS(CHANNEL_OUTPUT_STATUS, ValueType.STRING),
+    OUTPUT_LASTMODE(CHANNEL_OUTPUT_LASTMODE, ValueType.STRING);
+
+    /**
+     * The kind of value a channel holds
+     */
+    public enum ValueType {
+        SWITCH,
+        STRING,
+        PERCENT
+    }
+
+    /**
+     * Channels of the hdmi ports, indexed by port (0 = output, 1..4 = inputs)
+     */
+    public static final HueSyncChannel[] PORT_NAME = { OUTPUT_NAME, INPUT1_NAME, INPUT2_NAME, INPUT3_NAME,
+            INPUT4_NAME };
+    public static final HueSyncChannel[] PORT_TYPE = { OUTPUT_TYPE, INPUT1_TYPE, INPUT2_TYPE, INPUT3_TYPE,
+            INPUT4_TYPE };
+    public static final HueSyncChannel[] PORT_STATUS = { OUTPUT_STATUS, INPUT1_STATUS, INPUT2_STATUS, INPUT3_STATUS,
+            INPUT4_STATUS };
+    public static final HueSyncChannel[] PORT_LASTMODE = { OUTPUT_LASTMODE, INPUT1_LASTMODE, INPUT2_LASTMODE,
+            INPUT3_LASTMODE, INPUT4_LASTMODE };
+
+    private static final HueSyncChannel[] VALUES = values();
+    private static final Map<String, HueSyncChannel> BY_CHANNEL_ID = new HashMap<>();
+
+    static {
+        for (HueSyncChannel channel : VALUES) {
+            BY_CHANNEL_ID.put(channel.channelId, channel);
+        }
+    }
+
+    private final String channelId;
+    private final ValueType valueType;
+
+    HueSyncChannel(String channelId, ValueType valueType) {
+        this.channelId = channelId;
+        this.valueType = valueType;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public ValueType getValueType() {
+        return valueType;
+    }
+
+    /**
+     * @return the number of channels
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * @return the channel for the given slot index
+     */
+    public static HueSyncChannel fromIndex(int index) {
+        return VALUES[index];
+    }
+
+    /**
+     * @return the channel with the given id, or null if the id is unknown
+     */
+    public static @Nullable HueSyncChannel fromChannelId(String channelId) {
+        return BY_CHANNEL_ID.get(channelId);
+    }
+}
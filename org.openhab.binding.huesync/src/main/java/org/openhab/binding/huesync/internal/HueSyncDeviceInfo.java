@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import static org.openhab.binding.huesync.internal.HueSyncBindingConstants.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.thing.Thing;
+
+/**
+ * Immutable information about a huesync-box as reported by the <code>/device</code> endpoint. The information
+ * rarely changes, so it is cached and only requested again if the firmware of the box changed or the
+ * information has expired.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public final class HueSyncDeviceInfo {
+
+    private final String name;
+    private final String deviceType;
+    private final String uniqueId;
+    private final String firmwareVersion;
+    private final int apiLevel;
+    private final int maxIrCodes;
+    private final int maxPresets;
+    private final long retrievedAt;
+
+    /**
+     * @param retrievedAt the time the information was received from the box, in milliseconds since the epoch
+     */
+    public HueSyncDeviceInfo(String name, String deviceType, String uniqueId, String firmwareVersion, int apiLevel,
+            int maxIrCodes, int maxPresets, long retrievedAt) {
+        this.name = name;
+        this.deviceType = deviceType;
+        this.uniqueId = uniqueId;
+        this.firmwareVersion = firmwareVersion;
+        this.apiLevel = apiLevel;
+        this.maxIrCodes = maxIrCodes;
+        this.maxPresets = maxPresets;
+        this.retrievedAt = retrievedAt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public String getUniqueId() {
+        return uniqueId;
+    }
+
+    public String getFirmwareVersion() {
+        return firmwareVersion;
+    }
+
+    public int getApiLevel() {
+        return apiLevel;
+    }
+
+    public int getMaxIrCodes() {
+        return maxIrCodes;
+    }
+
+    public int getMaxPresets() {
+        return maxPresets;
+    }
+
+    public long getRetrievedAt() {
+        return retrievedAt;
+    }
+
+    /**
+     * @param ttlMillis the time to live of the information
+     * @return true if the information is older than the time to live
+     */
+    public boolean isExpired(long ttlMillis) {
+        return System.currentTimeMillis() - retrievedAt > ttlMillis;
+    }
+
+    /**
+     * @return the information as thing properties, values which are not known are left out
+     */
+    public Map<String, String> toProperties() {
+        Map<String, String> properties = new HashMap<>();
+        putIfKnown(properties, PROPERTY_DEVICE_NAME, name);
+        putIfKnown(properties, Thing.PROPERTY_MODEL_ID, deviceType);
+        putIfKnown(properties, Thing.PROPERTY_SERIAL_NUMBER, uniqueId);
+        putIfKnown(properties, Thing.PROPERTY_FIRMWARE_VERSION, firmwareVersion);
+        putIfKnown(properties, PROPERTY_API_LEVEL, apiLevel);
+        putIfKnown(properties, PROPERTY_MAX_IR_CODES, maxIrCodes);
+        putIfKnown(properties, PROPERTY_MAX_PRESETS, maxPresets);
+        return properties;
+    }
+
+    private static void putIfKnown(Map<String, String> properties, String key, int value) {
+        if (value > 0) {
+            properties.put(key, Integer.toString(value));
+        }
+    }
+
+    private static void putIfKnown(Map<String, String> properties, String key, String value) {
+        if (!value.isEmpty()) {
+            properties.put(key, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HueSyncDeviceInfo [name=" + name + ", deviceType=" + deviceType + ", uniqueId=" + uniqueId
+                + ", firmwareVersion=" + firmwareVersion + ", apiLevel=" + apiLevel + ", maxIrCodes=" + maxIrCodes
+                + ", maxPresets=" + maxPresets + ", retrievedAt=" + retrievedAt + "]";
+    }
+}
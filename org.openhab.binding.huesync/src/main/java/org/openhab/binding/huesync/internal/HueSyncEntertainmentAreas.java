@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Immutable list of the entertainment areas of the hue bridge a huesync-box is connected to, as reported by the
+ * <code>/hue</code> endpoint. The areas rarely change, so they are only requested once a channel needs them and
+ * cached until they expire.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public final class HueSyncEntertainmentAreas {
+
+    private final String bridgeUniqueId;
+    private final Map<String, String> names;
+    private final long retrievedAt;
+
+    /**
+     * @param names the names of the areas by their id, in the order reported by the box
+     * @param retrievedAt the time the areas were received from the box, in milliseconds since the epoch
+     */
+    public HueSyncEntertainmentAreas(String bridgeUniqueId, Map<String, String> names, long retrievedAt) {
+        this.bridgeUniqueId = bridgeUniqueId;
+        this.names = Collections.unmodifiableMap(new LinkedHashMap<>(names));
+        this.retrievedAt = retrievedAt;
+    }
+
+    public String getBridgeUniqueId() {
+        return bridgeUniqueId;
+    }
+
+    /**
+     * @return the names of the areas by their id
+     */
+    public Map<String, String> getNames() {
+        return names;
+    }
+
+    /**
+     * @return true if the bridge has an area with the given id
+     */
+    public boolean contains(String id) {
+        return names.containsKey(id);
+    }
+
+    /**
+     * @param ttlMillis the time to live of the areas
+     * @return true if the areas are older than the time to live
+     */
+    public boolean isExpired(long ttlMillis) {
+        return System.currentTimeMillis() - retrievedAt > ttlMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "HueSyncEntertainmentAreas [bridgeUniqueId=" + bridgeUniqueId + ", names=" + names + ", retrievedAt="
+                + retrievedAt + "]";
+    }
+}
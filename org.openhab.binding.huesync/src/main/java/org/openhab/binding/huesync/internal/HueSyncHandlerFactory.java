@@ -12,24 +12,35 @@
  */
 package org.openhab.binding.huesync.internal;
 
-import java.util.Collections;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openhab.binding.huesync.internal.connector.HueSyncHttpClientStatistics;
+import org.openhab.binding.huesync.internal.connector.HueSyncPairingService;
+import org.openhab.binding.huesync.internal.connector.HueSyncPollingCoordinator;
+import org.openhab.binding.huesync.internal.handler.HueSyncGroupHandler;
 import org.openhab.binding.huesync.internal.handler.HueSyncHandler;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetricsJmxExporter;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.io.net.http.HttpClientFactory;
 import org.openhab.core.io.net.http.HttpClientInitializationException;
 import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingRegistry;
 import org.openhab.core.thing.ThingTypeUID;
 import org.openhab.core.thing.binding.BaseThingHandlerFactory;
 import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.thing.binding.ThingHandlerFactory;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The {@link HueSyncHandlerFactory} is responsible for creating things and thing
@@ -41,21 +52,89 @@ import org.osgi.service.component.annotations.Reference;
 @Component(configurationPid = "binding.huesync", service = ThingHandlerFactory.class)
 public class HueSyncHandlerFactory extends BaseThingHandlerFactory {
 
-    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Collections
-            .singleton(HueSyncBindingConstants.THING_TYPE_SYNCBOX);
+    private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Set
+            .of(HueSyncBindingConstants.THING_TYPE_SYNCBOX, HueSyncBindingConstants.THING_TYPE_SYNCGROUP);
+
+    // Number of status polls of all boxes that may be in flight at the same time
+    private static final int MAX_CONCURRENT_POLLS = 4;
+
+    // Tuning of the http client for the low powered boxes
+    private static final int HTTP_MAX_THREADS = 10;
+    private static final int HTTP_MIN_THREADS = 2;
+    private static final int HTTP_THREAD_IDLE_TIMEOUT_MS = 60_000;
+    private static final int HTTP_MAX_CONNECTIONS_PER_BOX = 2;
+    private static final int HTTP_MAX_QUEUED_REQUESTS_PER_BOX = 32;
+    private static final long HTTP_CONNECT_TIMEOUT_MS = 5_000;
+    // Keep idle connections open longer than the default polling interval, so polls reuse them
+    private static final long HTTP_IDLE_TIMEOUT_MS = 90_000;
+    private static final int TLS_SESSION_CACHE_SIZE = 64;
+    private static final int TLS_SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncHandlerFactory.class);
 
     private final HttpClient httpClient;
+    private final HueSyncHttpClientStatistics httpClientStatistics = new HueSyncHttpClientStatistics();
+    private final HueSyncMetricsJmxExporter httpClientStatisticsExporter = new HueSyncMetricsJmxExporter();
+    private final HueSyncPollingCoordinator pollingCoordinator = new HueSyncPollingCoordinator(
+            ThreadPoolManager.getScheduledPool(HueSyncBindingConstants.BINDING_ID), MAX_CONCURRENT_POLLS);
+
+    private final HueSyncPairingService pairingService;
+    private final HueSyncStateDescriptionProvider stateDescriptionProvider;
+    private final ThingRegistry thingRegistry;
 
     @Activate
-    public HueSyncHandlerFactory(@Reference final HttpClientFactory httpClientFactory) {
+    public HueSyncHandlerFactory(@Reference final HttpClientFactory httpClientFactory,
+            @Reference final HueSyncStateDescriptionProvider stateDescriptionProvider,
+            @Reference final ThingRegistry thingRegistry) {
+        this.stateDescriptionProvider = stateDescriptionProvider;
+        this.thingRegistry = thingRegistry;
         // [wip] mgb: disabled due to missing common name attributes with certs
         // this.httpClient = httpClientFactory.getCommonHttpClient();
-        httpClient = new HttpClient(new SslContextFactory.Client(true));
+        httpClient = createHttpClient();
         try {
             httpClient.start();
         } catch (Exception e) {
             throw new HttpClientInitializationException("Could not start HttpClient", e);
         }
+        pairingService = new HueSyncPairingService(httpClient,
+                ThreadPoolManager.getScheduledPool(HueSyncBindingConstants.BINDING_ID));
+        // the connection and handshake counters apply to all boxes, so they are not shown per thing
+        httpClientStatisticsExporter.export("type=httpClient", httpClientStatistics);
+    }
+
+    private HttpClient createHttpClient() {
+        SslContextFactory.Client sslContextFactory = new SslContextFactory.Client(true);
+        sslContextFactory.setSessionCachingEnabled(true);
+        sslContextFactory.setSslSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+        sslContextFactory.setSslSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+
+        QueuedThreadPool executor = new QueuedThreadPool(HTTP_MAX_THREADS, HTTP_MIN_THREADS,
+                HTTP_THREAD_IDLE_TIMEOUT_MS);
+        executor.setName("OH-binding-" + HueSyncBindingConstants.BINDING_ID + "-http");
+        executor.setDaemon(true);
+
+        HttpClient client = new HttpClient(sslContextFactory);
+        client.setExecutor(executor);
+        client.setMaxConnectionsPerDestination(HTTP_MAX_CONNECTIONS_PER_BOX);
+        client.setMaxRequestsQueuedPerDestination(HTTP_MAX_QUEUED_REQUESTS_PER_BOX);
+        client.setConnectTimeout(HTTP_CONNECT_TIMEOUT_MS);
+        client.setIdleTimeout(HTTP_IDLE_TIMEOUT_MS);
+        client.setFollowRedirects(false);
+        client.addBean(httpClientStatistics);
+        return client;
+    }
+
+    @Override
+    @Deactivate
+    protected void deactivate(ComponentContext componentContext) {
+        super.deactivate(componentContext);
+        httpClientStatisticsExporter.unexport();
+        pairingService.dispose();
+        try {
+            httpClient.stop();
+        } catch (Exception e) {
+            logger.debug("Could not stop HttpClient: {}", e.getMessage());
+        }
     }
 
     @Override
@@ -68,7 +147,9 @@ public class HueSyncHandlerFactory extends BaseThingHandlerFactory {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
 
         if (thingTypeUID.equals(HueSyncBindingConstants.THING_TYPE_SYNCBOX)) {
-            return new HueSyncHandler(thing, httpClient);
+            return new HueSyncHandler(thing, httpClient, pollingCoordinator, pairingService, stateDescriptionProvider);
+        } else if (thingTypeUID.equals(HueSyncBindingConstants.THING_TYPE_SYNCGROUP)) {
+            return new HueSyncGroupHandler(thing, thingRegistry);
         }
 
         return null;
@@ -12,51 +12,66 @@
  */
 package org.openhab.binding.huesync.internal;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.library.types.PercentType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Represents the state of the handled HueSync Box
  *
+ * The values are kept in slots indexed by {@link HueSyncChannel}. New values are compared with the raw value
+ * of the slot first, so the openHAB {@link State} is only created if the value really changed. Changes are
+ * collected until {@link #publish()} is called, e.g. once per poll, which publishes an immutable
+ * {@link HueSyncStateSnapshot} and notifies the listener once with the previous and the new snapshot. Readers
+ * use the published snapshot without locking. The listener is notified after the lock of the state has been
+ * released, so its updates of channels and the cache never block polls and commands.
+ *
+ * Values of commanded channels are applied optimistically before the box has confirmed them. Such channels are
+ * marked pending and are not overwritten by the polled state while the command is in flight. Once the command
+ * has been sent, the next poll reconciles the channel with the state reported by the box. If the command
+ * failed, the channel is rolled back to the last value reported by the box.
+ *
  * @author Marco Kawon - Initial contribution
  *
  */
+@NonNullByDefault
 public class HueSyncState {
 
-    private State power;
-    private State mode;
-    private State intensity;
-    private State brightness;
-    private State input;
-    private State syncStatus;
-
-    private State input1Name;
-    private State input1Type;
-    private State input1Status;
-    private State input1LastMode;
-
-    private State input2Name;
-    private State input2Type;
-    private State input2Status;
-    private State input2LastMode;
-
-    private State input3Name;
-    private State input3Type;
-    private State input3Status;
-    private State input3LastMode;
-
-    private State input4Name;
-    private State input4Type;
-    private State input4Status;
-    private State input4LastMode;
-
-    private State outputName;
-    private State outputType;
-    private State outputStatus;
-    private State outputLastMode;
-
+    private final @Nullable String[] stringValues = new String[HueSyncChannel.count()];
+    private final int[] intValues = new int[HueSyncChannel.count()];
+    private final @Nullable State[] states = new State[HueSyncChannel.count()];
+
+    // No command pending, the value was reported by the box
+    private static final byte CONFIRMED = 0;
+    // The command has not completed yet, polled values are ignored
+    private static final byte IN_FLIGHT = 1;
+    // The command has been sent, polled values are ignored until the next poll starts
+    private static final byte SENT = 2;
+    // The command has been sent before the running poll started, its value is taken as confirmation
+    private static final byte RECONCILING = 3;
+
+    private final byte[] pending = new byte[HueSyncChannel.count()];
+    private final @Nullable String[] rollbackStringValues = new String[HueSyncChannel.count()];
+    private final int[] rollbackIntValues = new int[HueSyncChannel.count()];
+    private final @Nullable State[] rollbackStates = new State[HueSyncChannel.count()];
+    // Counts the polled values which have been ignored and the rollbacks, see getDivergenceCount()
+    private long divergenceCount;
+
+    private final AtomicReference<HueSyncStateSnapshot> snapshot = new AtomicReference<>(
+            HueSyncStateSnapshot.EMPTY);
+    private boolean changed;
+    // Serializes the notifications, so the listener sees the snapshots in the order of their versions
+    private final Object notificationLock = new Object();
+    private HueSyncStateSnapshot notified = HueSyncStateSnapshot.EMPTY;
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncState.class);
     private HueSyncStateChangedListener handler;
 
     public HueSyncState(HueSyncStateChangedListener handler) {
@@ -67,275 +82,323 @@ public class HueSyncState {
         handler.connectionError(errorMessage);
     }
 
-    public State getStateForChannelID(String channelID) {
-        switch (channelID) {
-            case HueSyncBindingConstants.CHANNEL_POWER:
-                return power;
-            case HueSyncBindingConstants.CHANNEL_MODE:
-                return mode;
-            case HueSyncBindingConstants.CHANNEL_INTENSITY:
-                return intensity;
-            case HueSyncBindingConstants.CHANNEL_BRIGHTNESS:
-                return brightness;
-            case HueSyncBindingConstants.CHANNEL_INPUT:
-                return input;
-            case HueSyncBindingConstants.CHANNEL_SYNCSTATUS:
-                return syncStatus;
-
-            case HueSyncBindingConstants.CHANNEL_INPUT1_NAME:
-                return input1Name;
-            case HueSyncBindingConstants.CHANNEL_INPUT1_TYPE:
-                return input1Type;
-            case HueSyncBindingConstants.CHANNEL_INPUT1_STATUS:
-                return input1Status;
-            case HueSyncBindingConstants.CHANNEL_INPUT1_LASTMODE:
-                return input1LastMode;
-
-            case HueSyncBindingConstants.CHANNEL_INPUT2_NAME:
-                return input2Name;
-            case HueSyncBindingConstants.CHANNEL_INPUT2_TYPE:
-                return input2Type;
-            case HueSyncBindingConstants.CHANNEL_INPUT2_STATUS:
-                return input2Status;
-            case HueSyncBindingConstants.CHANNEL_INPUT2_LASTMODE:
-                return input2LastMode;
-
-            case HueSyncBindingConstants.CHANNEL_INPUT3_NAME:
-                return input3Name;
-            case HueSyncBindingConstants.CHANNEL_INPUT3_TYPE:
-                return input3Type;
-            case HueSyncBindingConstants.CHANNEL_INPUT3_STATUS:
-                return input3Status;
-            case HueSyncBindingConstants.CHANNEL_INPUT3_LASTMODE:
-                return input3LastMode;
-
-            case HueSyncBindingConstants.CHANNEL_INPUT4_NAME:
-                return input4Name;
-            case HueSyncBindingConstants.CHANNEL_INPUT4_TYPE:
-                return input4Type;
-            case HueSyncBindingConstants.CHANNEL_INPUT4_STATUS:
-                return input4Status;
-            case HueSyncBindingConstants.CHANNEL_INPUT4_LASTMODE:
-                return input4LastMode;
-
-            case HueSyncBindingConstants.CHANNEL_OUTPUT_NAME:
-                return outputName;
-            case HueSyncBindingConstants.CHANNEL_OUTPUT_TYPE:
-                return outputType;
-            case HueSyncBindingConstants.CHANNEL_OUTPUT_STATUS:
-                return outputStatus;
-            case HueSyncBindingConstants.CHANNEL_OUTPUT_LASTMODE:
-                return outputLastMode;
-            default:
-                return null;
-        }
+    public void deviceInfoReceived(HueSyncDeviceInfo deviceInfo) {
+        handler.deviceInfoReceived(deviceInfo);
     }
 
-    public void setPower(boolean power) {
-        OnOffType newVal = power ? OnOffType.ON : OnOffType.OFF;
-        if (newVal != this.power) {
-            this.power = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_POWER, this.power);
-        }
+    public void entertainmentAreasReceived(HueSyncEntertainmentAreas entertainmentAreas) {
+        handler.entertainmentAreasReceived(entertainmentAreas);
     }
 
-    public void setMode(String mode) {
-        StringType newVal = StringType.valueOf(mode);
-        if (!newVal.equals(this.mode)) {
-            this.mode = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_MODE, this.mode);
-        }
+    public boolean isLinked(HueSyncChannel channel) {
+        return handler.isLinked(channel);
     }
 
-    public void setIntensity(String intensity) {
-        StringType newVal = StringType.valueOf(intensity);
-        if (!newVal.equals(this.intensity)) {
-            this.intensity = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INTENSITY, this.intensity);
-        }
+    public void pairingProgress(String message) {
+        handler.pairingProgress(message);
     }
 
-    public void setBrightness(int brightness) {
-        PercentType newVal = new PercentType(brightness);
-        if (!newVal.equals(this.brightness)) {
-            this.brightness = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_BRIGHTNESS, this.brightness);
-        }
+    public void pairingCompleted(String apiAccessToken) {
+        handler.pairingCompleted(apiAccessToken);
     }
 
-    public void setInput(String input) {
-        StringType newVal = StringType.valueOf(input);
-        if (!newVal.equals(this.input)) {
-            this.input = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT, this.input);
-        }
+    public void connectionEstablished() {
+        handler.connectionEstablished();
     }
 
-    public void setSyncStatus(boolean active) {
-        OnOffType newVal = active ? OnOffType.ON : OnOffType.OFF;
-        if (newVal != this.syncStatus) {
-            this.syncStatus = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_SYNCSTATUS, this.syncStatus);
-        }
+    /**
+     * @return the last published snapshot of the state
+     */
+    public HueSyncStateSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
-    public void setInput1Name(String name) {
-        StringType newVal = StringType.valueOf(name);
-        if (!newVal.equals(this.input1Name)) {
-            this.input1Name = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT1_NAME, this.input1Name);
-        }
+    /**
+     * @return the published state of the channel, or null if it is not known yet
+     */
+    public @Nullable State getState(HueSyncChannel channel) {
+        return snapshot.get().getState(channel);
     }
 
-    public void setInput1Type(String type) {
-        StringType newVal = StringType.valueOf(type);
-        if (!newVal.equals(this.input1Type)) {
-            this.input1Type = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT1_TYPE, this.input1Type);
-        }
+    /**
+     * @return the published state of the channel with the given id, or null if the channel is unknown or its
+     *         state is not known yet
+     */
+    public @Nullable State getStateForChannelID(String channelID) {
+        return snapshot.get().getStateForChannelID(channelID);
     }
 
-    public void setInput1Status(String status) {
-        StringType newVal = StringType.valueOf(status);
-        if (!newVal.equals(this.input1Status)) {
-            this.input1Status = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT1_STATUS, this.input1Status);
-        }
+    /**
+     * The state diverges from the documents received from the box whenever a polled value is ignored because a
+     * command is pending, or a commanded value is rolled back. A document which has been decoded before the count
+     * changed is not fully reflected in the state, so it must be decoded again even if it is unchanged.
+     *
+     * @return the number of times the state diverged from the polled documents
+     */
+    public synchronized long getDivergenceCount() {
+        return divergenceCount;
     }
 
-    public void setInput1LastMode(String mode) {
-        StringType newVal = StringType.valueOf(mode);
-        if (!newVal.equals(this.input1LastMode)) {
-            this.input1LastMode = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT1_LASTMODE, this.input1LastMode);
+    /**
+     * Publish the changes since the last call as a new snapshot and notify the listener. Nothing is published if
+     * no value has changed. A stale snapshot stays stale until the state has been polled successfully.
+     */
+    public void publish() {
+        synchronized (this) {
+            if (!changed) {
+                return;
+            }
+            swap(snapshot.get().isStale());
         }
+        notifyListener();
     }
 
-    public void setInput2Name(String name) {
-        StringType newVal = StringType.valueOf(name);
-        if (!newVal.equals(this.input2Name)) {
-            this.input2Name = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT2_NAME, this.input2Name);
+    /**
+     * Publish the changes after the state has been polled successfully. The first successful poll confirms a
+     * restored snapshot even if no value has changed.
+     */
+    public void publishPolled() {
+        synchronized (this) {
+            if (!changed && !snapshot.get().isStale()) {
+                return;
+            }
+            swap(false);
         }
+        notifyListener();
     }
 
-    public void setInput2Type(String type) {
-        StringType newVal = StringType.valueOf(type);
-        if (!newVal.equals(this.input2Type)) {
-            this.input2Type = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT2_TYPE, this.input2Type);
+    /**
+     * Restore the values of a snapshot read from the cache and publish them as stale snapshot. Nothing is
+     * restored once a snapshot has been published.
+     */
+    public void restore(HueSyncStateSnapshot cached) {
+        synchronized (this) {
+            if (!restoreValues(cached)) {
+                return;
+            }
         }
+        notifyListener();
     }
 
-    public void setInput2Status(String status) {
-        StringType newVal = StringType.valueOf(status);
-        if (!newVal.equals(this.input2Status)) {
-            this.input2Status = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT2_STATUS, this.input2Status);
+    private boolean restoreValues(HueSyncStateSnapshot cached) {
+        if (snapshot.get().getVersion() != 0) {
+            return false;
+        }
+        for (HueSyncChannel channel : HueSyncChannel.values()) {
+            int index = channel.ordinal();
+            State cachedState = cached.getState(channel);
+            if (cachedState == null) {
+                continue;
+            }
+            switch (channel.getValueType()) {
+                case SWITCH:
+                    intValues[index] = cachedState == OnOffType.ON ? 1 : 0;
+                    break;
+                case PERCENT:
+                    intValues[index] = ((PercentType) cachedState).intValue();
+                    break;
+                default:
+                    stringValues[index] = cachedState.toString();
+                    break;
+            }
+            update(channel, cachedState);
         }
+        if (!changed) {
+            return false;
+        }
+        swap(true);
+        return true;
+    }
+
+    /**
+     * Replace the published snapshot by a new one with the current values. Must be called with the lock held.
+     */
+    private void swap(boolean stale) {
+        changed = false;
+        snapshot.set(new HueSyncStateSnapshot(snapshot.get().getVersion() + 1, states, stale));
     }
 
-    public void setInput2LastMode(String mode) {
-        StringType newVal = StringType.valueOf(mode);
-        if (!newVal.equals(this.input2LastMode)) {
-            this.input2LastMode = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT2_LASTMODE, this.input2LastMode);
+    /**
+     * Notify the listener about the published snapshot, without holding the lock of the state. If snapshots are
+     * published concurrently, the listener may be notified once for several of them.
+     */
+    private void notifyListener() {
+        synchronized (notificationLock) {
+            HueSyncStateSnapshot current = snapshot.get();
+            if (current.getVersion() <= notified.getVersion()) {
+                // already notified by a concurrent publish
+                return;
+            }
+            HueSyncStateSnapshot previous = notified;
+            notified = current;
+            handler.stateChanged(previous, current);
         }
     }
 
-    public void setInput3Name(String name) {
-        StringType newVal = StringType.valueOf(name);
-        if (!newVal.equals(this.input3Name)) {
-            this.input3Name = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT3_NAME, this.input3Name);
+    public synchronized void setSwitch(HueSyncChannel channel, boolean on) {
+        if (isPolledValueAccepted(channel, on ? 1 : 0, null)) {
+            applySwitch(channel, on);
         }
     }
 
-    public void setInput3Type(String type) {
-        StringType newVal = StringType.valueOf(type);
-        if (!newVal.equals(this.input3Type)) {
-            this.input3Type = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT3_TYPE, this.input3Type);
+    public synchronized void setPercent(HueSyncChannel channel, int percent) {
+        if (isPolledValueAccepted(channel, percent, null)) {
+            applyPercent(channel, percent);
         }
     }
 
-    public void setInput3Status(String status) {
-        StringType newVal = StringType.valueOf(status);
-        if (!newVal.equals(this.input3Status)) {
-            this.input3Status = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT3_STATUS, this.input3Status);
+    public synchronized void setString(HueSyncChannel channel, String value) {
+        if (isPolledValueAccepted(channel, 0, value)) {
+            applyString(channel, value);
         }
     }
 
-    public void setInput3LastMode(String mode) {
-        StringType newVal = StringType.valueOf(mode);
-        if (!newVal.equals(this.input3LastMode)) {
-            this.input3LastMode = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT3_LASTMODE, this.input3LastMode);
+    /**
+     * Apply a commanded value before the box has confirmed it and mark the channel pending.
+     */
+    public synchronized void setPendingSwitch(HueSyncChannel channel, boolean on) {
+        markPending(channel);
+        applySwitch(channel, on);
+    }
+
+    /**
+     * Apply a commanded value before the box has confirmed it and mark the channel pending.
+     */
+    public synchronized void setPendingPercent(HueSyncChannel channel, int percent) {
+        markPending(channel);
+        applyPercent(channel, percent);
+    }
+
+    /**
+     * Apply a commanded value before the box has confirmed it and mark the channel pending.
+     */
+    public synchronized void setPendingString(HueSyncChannel channel, String value) {
+        markPending(channel);
+        applyString(channel, value);
+    }
+
+    /**
+     * The command for the channel has completed. On success the channel is reconciled by the next poll,
+     * otherwise it is rolled back to the last value reported by the box.
+     */
+    public synchronized void commandCompleted(HueSyncChannel channel, boolean success) {
+        int index = channel.ordinal();
+        if (pending[index] != IN_FLIGHT) {
+            return;
+        }
+        if (success) {
+            pending[index] = SENT;
+            return;
+        }
+
+        pending[index] = CONFIRMED;
+        divergenceCount++;
+        State rollbackState = rollbackStates[index];
+        if (rollbackState != null && !rollbackState.equals(states[index])) {
+            logger.debug("Command for channel {} failed, rolling back to {}", channel.getChannelId(), rollbackState);
+            stringValues[index] = rollbackStringValues[index];
+            intValues[index] = rollbackIntValues[index];
+            update(channel, rollbackState);
         }
     }
 
-    public void setInput4Name(String name) {
-        StringType newVal = StringType.valueOf(name);
-        if (!newVal.equals(this.input4Name)) {
-            this.input4Name = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT4_NAME, this.input4Name);
+    /**
+     * Called before the state of the box is requested. Channels whose command has been sent are reconciled
+     * with the values of this poll.
+     *
+     * @return true if there are channels to reconcile, so the response must be decoded even if it seems unchanged
+     */
+    public synchronized boolean beginReconcile() {
+        boolean reconcile = false;
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] == SENT) {
+                pending[i] = RECONCILING;
+                reconcile = true;
+            }
         }
+        return reconcile;
     }
 
-    public void setInput4Type(String type) {
-        StringType newVal = StringType.valueOf(type);
-        if (!newVal.equals(this.input4Type)) {
-            this.input4Type = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT4_TYPE, this.input4Type);
+    /**
+     * Called after the state of the box has been requested.
+     *
+     * @param success true if the state has been received, false to reconcile with the next poll
+     */
+    public synchronized void endReconcile(boolean success) {
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] == RECONCILING) {
+                pending[i] = success ? CONFIRMED : SENT;
+            }
         }
     }
 
-    public void setInput4Status(String status) {
-        StringType newVal = StringType.valueOf(status);
-        if (!newVal.equals(this.input4Status)) {
-            this.input4Status = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT4_STATUS, this.input4Status);
+    /**
+     * Drop all pending marks, e.g. because the connection has been lost. The next poll overwrites all values.
+     */
+    public synchronized void clearPending() {
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] != CONFIRMED) {
+                pending[i] = CONFIRMED;
+                divergenceCount++;
+            }
         }
     }
 
-    public void setInput4LastMode(String mode) {
-        StringType newVal = StringType.valueOf(mode);
-        if (!newVal.equals(this.input4LastMode)) {
-            this.input4LastMode = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_INPUT4_LASTMODE, this.input4LastMode);
+    private void markPending(HueSyncChannel channel) {
+        int index = channel.ordinal();
+        if (pending[index] == CONFIRMED) {
+            rollbackStringValues[index] = stringValues[index];
+            rollbackIntValues[index] = intValues[index];
+            rollbackStates[index] = states[index];
         }
+        pending[index] = IN_FLIGHT;
     }
 
-    public void setOutputName(String name) {
-        StringType newVal = StringType.valueOf(name);
-        if (!newVal.equals(this.outputName)) {
-            this.outputName = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_OUTPUT_NAME, this.outputName);
+    private boolean isPolledValueAccepted(HueSyncChannel channel, int intValue, @Nullable String stringValue) {
+        int index = channel.ordinal();
+        switch (pending[index]) {
+            case IN_FLIGHT:
+            case SENT:
+                divergenceCount++;
+                return false;
+            case RECONCILING:
+                if (stringValue != null ? !stringValue.equals(stringValues[index]) : intValue != intValues[index]) {
+                    logger.debug("Box reports a different value for commanded channel {}", channel.getChannelId());
+                }
+                pending[index] = CONFIRMED;
+                return true;
+            default:
+                return true;
         }
     }
 
-    public void setOutputType(String type) {
-        StringType newVal = StringType.valueOf(type);
-        if (!newVal.equals(this.outputType)) {
-            this.outputType = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_OUTPUT_TYPE, this.outputType);
+    private void applySwitch(HueSyncChannel channel, boolean on) {
+        int index = channel.ordinal();
+        int value = on ? 1 : 0;
+        if (states[index] == null || intValues[index] != value) {
+            intValues[index] = value;
+            update(channel, on ? OnOffType.ON : OnOffType.OFF);
         }
     }
 
-    public void setOutputStatus(String status) {
-        StringType newVal = StringType.valueOf(status);
-        if (!newVal.equals(this.outputStatus)) {
-            this.outputStatus = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_OUTPUT_STATUS, this.outputStatus);
+    private void applyPercent(HueSyncChannel channel, int percent) {
+        int index = channel.ordinal();
+        if (states[index] == null || intValues[index] != percent) {
+            intValues[index] = percent;
+            update(channel, new PercentType(percent));
         }
     }
 
-    public void setOutputLastMode(String mode) {
-        StringType newVal = StringType.valueOf(mode);
-        if (!newVal.equals(this.outputLastMode)) {
-            this.outputLastMode = newVal;
-            handler.stateChanged(HueSyncBindingConstants.CHANNEL_OUTPUT_LASTMODE, this.outputLastMode);
+    private void applyString(HueSyncChannel channel, String value) {
+        int index = channel.ordinal();
+        if (states[index] == null || !value.equals(stringValues[index])) {
+            stringValues[index] = value;
+            update(channel, StringType.valueOf(value));
         }
     }
+
+    private void update(HueSyncChannel channel, State state) {
+        states[channel.ordinal()] = state;
+        changed = true;
+    }
 }
@@ -0,0 +1,332 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.thing.ThingUID;
+import org.openhab.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HueSyncStateCache} keeps the last known state and device information of a huesync-box in a small
+ * binary file under the userdata folder, so the channels can be restored right after a restart of openHAB.
+ *
+ * Writes are collected and done asynchronously at most once per write delay, so the polling is never blocked
+ * by file operations. The content is encoded under the lock of the cache, the file itself is written and
+ * replaced atomically outside of it.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncStateCache {
+
+    private static final String CACHE_FOLDER = "huesync";
+    private static final int MAGIC = 0x48535943; // "HSYC"
+    private static final byte FORMAT_VERSION = 2;
+    private static final long WRITE_DELAY_SECONDS = 30;
+
+    private static final byte TYPE_SWITCH = 1;
+    private static final byte TYPE_PERCENT = 2;
+    private static final byte TYPE_STRING = 3;
+
+    /**
+     * The content of the cache file
+     */
+    public static final class Content {
+        private final HueSyncStateSnapshot snapshot;
+        private final @Nullable HueSyncDeviceInfo deviceInfo;
+
+        Content(HueSyncStateSnapshot snapshot, @Nullable HueSyncDeviceInfo deviceInfo) {
+            this.snapshot = snapshot;
+            this.deviceInfo = deviceInfo;
+        }
+
+        public HueSyncStateSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public @Nullable HueSyncDeviceInfo getDeviceInfo() {
+            return deviceInfo;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncStateCache.class);
+
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+    private final Object fileLock = new Object();
+
+    private @Nullable HueSyncStateSnapshot snapshot;
+    private @Nullable HueSyncDeviceInfo deviceInfo;
+    private @Nullable ScheduledFuture<?> writeJob;
+    private boolean dirty;
+    private volatile boolean deleted;
+    private long encoded;
+    private long written; // guarded by fileLock
+
+    public HueSyncStateCache(ThingUID thingUID, ScheduledExecutorService scheduler) {
+        this(Paths.get(OpenHAB.getUserDataFolder(), CACHE_FOLDER, thingUID.getAsString().replace(':', '_') + ".bin"),
+                scheduler);
+    }
+
+    public HueSyncStateCache(Path file, ScheduledExecutorService scheduler) {
+        this.file = file;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Read the cache file.
+     *
+     * @return the cached content, or null if there is no valid cache file
+     */
+    public @Nullable Content load() {
+        Content content = read();
+        if (content != null) {
+            synchronized (this) {
+                snapshot = content.getSnapshot();
+                deviceInfo = content.getDeviceInfo();
+            }
+        }
+        return content;
+    }
+
+    private @Nullable Content read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+                logger.debug("Ignoring cache file {} with unknown format", file);
+                return null;
+            }
+
+            State[] states = new State[HueSyncChannel.count()];
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                HueSyncChannel channel = HueSyncChannel.fromChannelId(in.readUTF());
+                State state = readState(in);
+                if (channel != null && state != null) {
+                    states[channel.ordinal()] = state;
+                }
+            }
+
+            HueSyncDeviceInfo cachedDeviceInfo = null;
+            if (in.readBoolean()) {
+                cachedDeviceInfo = new HueSyncDeviceInfo(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readInt(), in.readInt(), in.readInt(), in.readLong());
+            }
+
+            return new Content(new HueSyncStateSnapshot(1, states, true), cachedDeviceInfo);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to read cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the snapshot with the next write. Stale snapshots are not stored.
+     */
+    public synchronized void store(HueSyncStateSnapshot snapshot) {
+        if (!snapshot.isStale() && !deleted) {
+            this.snapshot = snapshot;
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Store the device information with the next write.
+     */
+    public synchronized void store(HueSyncDeviceInfo deviceInfo) {
+        if (!deleted) {
+            this.deviceInfo = deviceInfo;
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Write pending changes and stop writing
+     */
+    public void dispose() {
+        synchronized (this) {
+            ScheduledFuture<?> job = writeJob;
+            if (job != null) {
+                job.cancel(false);
+                writeJob = null;
+            }
+        }
+        write();
+    }
+
+    /**
+     * Stop writing and delete the cache file, e.g. because the thing has been removed
+     */
+    public void delete() {
+        synchronized (this) {
+            deleted = true;
+            dirty = false;
+            ScheduledFuture<?> job = writeJob;
+            if (job != null) {
+                job.cancel(false);
+                writeJob = null;
+            }
+        }
+        // a write that has already encoded its content sees the flag under the file lock and skips the file
+        synchronized (fileLock) {
+            try {
+                Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".tmp"));
+                Files.deleteIfExists(file);
+                logger.trace("Deleted cache file {}", file);
+            } catch (IOException e) {
+                logger.debug("Failed to delete cache file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private void scheduleWrite() {
+        dirty = true;
+        if (writeJob == null) {
+            writeJob = scheduler.schedule(this::write, WRITE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void write() {
+        long sequence;
+        byte[] content;
+        synchronized (this) {
+            content = encode();
+            sequence = encoded;
+        }
+        if (content == null) {
+            return;
+        }
+
+        synchronized (fileLock) {
+            // a write of newer content may have overtaken this one, e.g. the final write on dispose
+            if (deleted || sequence <= written) {
+                return;
+            }
+            written = sequence;
+            try {
+                Files.createDirectories(file.getParent());
+                Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(tempFile, content);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.trace("Written cache file {}", file);
+            } catch (IOException e) {
+                logger.debug("Failed to write cache file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private byte @Nullable [] encode() {
+        writeJob = null;
+        HueSyncStateSnapshot currentSnapshot = snapshot;
+        if (!dirty || deleted || currentSnapshot == null) {
+            return null;
+        }
+        dirty = false;
+        encoded++;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeContent(out, currentSnapshot, deviceInfo);
+        } catch (IOException e) {
+            logger.debug("Failed to encode cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeContent(DataOutputStream out, HueSyncStateSnapshot snapshot,
+            @Nullable HueSyncDeviceInfo deviceInfo) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+
+        int count = 0;
+        for (HueSyncChannel channel : HueSyncChannel.values()) {
+            if (snapshot.getState(channel) != null) {
+                count++;
+            }
+        }
+        out.writeShort(count);
+        for (HueSyncChannel channel : HueSyncChannel.values()) {
+            State state = snapshot.getState(channel);
+            if (state != null) {
+                out.writeUTF(channel.getChannelId());
+                writeState(out, channel, state);
+            }
+        }
+
+        out.writeBoolean(deviceInfo != null);
+        if (deviceInfo != null) {
+            out.writeUTF(deviceInfo.getName());
+            out.writeUTF(deviceInfo.getDeviceType());
+            out.writeUTF(deviceInfo.getUniqueId());
+            out.writeUTF(deviceInfo.getFirmwareVersion());
+            out.writeInt(deviceInfo.getApiLevel());
+            out.writeInt(deviceInfo.getMaxIrCodes());
+            out.writeInt(deviceInfo.getMaxPresets());
+            out.writeLong(deviceInfo.getRetrievedAt());
+        }
+    }
+
+    private static void writeState(DataOutputStream out, HueSyncChannel channel, State state) throws IOException {
+        switch (channel.getValueType()) {
+            case SWITCH:
+                out.writeByte(TYPE_SWITCH);
+                out.writeBoolean(state == OnOffType.ON);
+                break;
+            case PERCENT:
+                out.writeByte(TYPE_PERCENT);
+                out.writeByte(((PercentType) state).intValue());
+                break;
+            default:
+                out.writeByte(TYPE_STRING);
+                out.writeUTF(state.toString());
+                break;
+        }
+    }
+
+    private static @Nullable State readState(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_SWITCH:
+                return in.readBoolean() ? OnOffType.ON : OnOffType.OFF;
+            case TYPE_PERCENT:
+                return new PercentType(in.readUnsignedByte());
+            case TYPE_STRING:
+                return StringType.valueOf(in.readUTF());
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+}
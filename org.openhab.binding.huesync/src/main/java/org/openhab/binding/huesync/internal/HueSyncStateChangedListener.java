@@ -14,7 +14,6 @@ package org.openhab.binding.huesync.internal;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.binding.huesync.internal.handler.HueSyncHandler;
-import org.openhab.core.types.State;
 
 /**
  * Interface to notify the {@link HueSyncHandler} about state changes.
@@ -25,12 +24,47 @@ import org.openhab.core.types.State;
 @NonNullByDefault
 public interface HueSyncStateChangedListener {
     /**
-     * Update was received.
+     * The state has changed. Called in the order of the snapshot versions, without holding the lock of the state.
+     * Snapshots published concurrently may be reported together by one call.
      *
-     * @param channelID the channel for which its state changed
-     * @param state the new state of the channel
+     * @param previous the snapshot reported by the previous call
+     * @param current the new snapshot
      */
-    void stateChanged(String channelID, State state);
+    void stateChanged(HueSyncStateSnapshot previous, HueSyncStateSnapshot current);
+
+    /**
+     * The device information has been received from the box
+     *
+     * @param deviceInfo the device information
+     */
+    void deviceInfoReceived(HueSyncDeviceInfo deviceInfo);
+
+    /**
+     * The entertainment areas have been received from the box
+     *
+     * @param entertainmentAreas the entertainment areas of the hue bridge
+     */
+    void entertainmentAreasReceived(HueSyncEntertainmentAreas entertainmentAreas);
+
+    /**
+     * @param channel the channel
+     * @return true if an item is linked to the channel, so its section of the api has to be polled
+     */
+    boolean isLinked(HueSyncChannel channel);
+
+    /**
+     * The box is being paired
+     *
+     * @param message describes what the pairing is waiting for
+     */
+    void pairingProgress(String message);
+
+    /**
+     * The box has been paired and a new api access token has been received
+     *
+     * @param apiAccessToken the new token
+     */
+    void pairingCompleted(String apiAccessToken);
 
     /**
      * A connection error occurred
@@ -38,4 +72,9 @@ public interface HueSyncStateChangedListener {
      * @param errorMessage the error message
      */
     void connectionError(String errorMessage);
+
+    /**
+     * The connection was established again after a connection error
+     */
+    void connectionEstablished();
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.types.State;
+
+/**
+ * Immutable view of the complete state of a huesync-box. Every change of the {@link HueSyncState} is published
+ * as a new snapshot with a higher version, so readers on other threads always see a consistent state.
+ *
+ * A snapshot restored from the cache is marked stale until the box has been polled.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public final class HueSyncStateSnapshot {
+
+    /**
+     * The snapshot before any value has been received
+     */
+    public static final HueSyncStateSnapshot EMPTY = new HueSyncStateSnapshot(0,
+            new State[HueSyncChannel.count()], false);
+
+    private final long version;
+    private final @Nullable State[] states;
+    private final boolean stale;
+
+    /**
+     * @param version the version of the snapshot
+     * @param states the states indexed by {@link HueSyncChannel}, the array is copied
+     * @param stale true if the states were not reported by the box since the binding has been started
+     */
+    HueSyncStateSnapshot(long version, @Nullable State[] states, boolean stale) {
+        this.version = version;
+        this.states = states.clone();
+        this.stale = stale;
+    }
+
+    /**
+     * @return the version of the snapshot, increasing with every change of the state
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if the states were restored from the cache and not yet confirmed by the box
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * @return the state of the channel, or null if it is not known yet
+     */
+    public @Nullable State getState(HueSyncChannel channel) {
+        return states[channel.ordinal()];
+    }
+
+    /**
+     * @return the state of the channel with the given id, or null if the channel is unknown or its state is not
+     *         known yet
+     */
+    public @Nullable State getStateForChannelID(String channelID) {
+        HueSyncChannel channel = HueSyncChannel.fromChannelId(channelID);
+        return channel == null ? null : getState(channel);
+    }
+
+    /**
+     * @return true if the state of the channel differs between the other snapshot and this one
+     */
+    public boolean isChanged(HueSyncChannel channel, HueSyncStateSnapshot other) {
+        State state = states[channel.ordinal()];
+        State otherState = other.states[channel.ordinal()];
+        return state == null ? otherState != null : !state.equals(otherState);
+    }
+
+    @Override
+    public String toString() {
+        return "HueSyncStateSnapshot [version=" + version + ", stale=" + stale + "]";
+    }
+}
@@ -33,6 +33,72 @@ public class HueSyncConfiguration {
      */
     public Integer httpPollingInterval = 60;
 
+    /**
+     * The interval to poll the rarely changing hdmi port information of the box
+     */
+    public Integer hdmiPollingInterval = 300;
+
+    /**
+     * The polling mode, either "fixed" or "adaptive"
+     */
+    public String pollingMode = "fixed";
+
+    /**
+     * The minimal interval in adaptive polling mode, used after commands and detected changes. Like the fixed
+     * polling interval, it is at least 5 seconds.
+     */
+    public Integer minPollingInterval = 5;
+
+    /**
+     * The maximal interval in adaptive polling mode, used while the box is in standby
+     */
+    public Integer maxPollingInterval = 300;
+
+    /**
+     * Skip decoding the box state if the response is identical to the previous one
+     */
+    public Boolean differentialFetch = true;
+
+    /**
+     * The number of consecutive failed polls after which the box is considered offline
+     */
+    public Integer failureThreshold = 3;
+
+    /**
+     * The time in seconds to wait before the connection is tried again for the first time
+     */
+    public Integer circuitOpenDuration = 10;
+
+    /**
+     * The maximal time in seconds to wait before the connection is tried again
+     */
+    public Integer maxCircuitOpenDuration = 600;
+
+    /**
+     * The time in milliseconds to collect commands before they are sent to the box in one request
+     */
+    public Integer commandBatchWindow = 100;
+
+    /**
+     * Export the metrics of the box via JMX
+     */
+    public Boolean metricsExport = false;
+
+    /**
+     * The number of requests per second the box is sent on average
+     */
+    public Integer requestRate = 2;
+
+    /**
+     * The number of requests which may be sent to the box at once
+     */
+    public Integer requestBurst = 5;
+
+    /**
+     * Run the polls and the handling of responses on virtual threads, if supported by the Java runtime
+     */
+    public Boolean virtualThreads = false;
+
     /**
      * The api bearer token for API endpoints that require registration
      */
@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.config;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Configuration class for a group of huesync-boxes.
+ *
+ * @author Marco Kawon - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class HueSyncGroupConfiguration {
+
+    /**
+     * The thing UIDs of the boxes of the group
+     */
+    public List<String> boxes = List.of();
+
+    /**
+     * The maximal number of boxes a command is sent to at the same time
+     */
+    public Integer maxConcurrency = 4;
+}
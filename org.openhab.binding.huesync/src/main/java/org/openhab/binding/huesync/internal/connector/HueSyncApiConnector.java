@@ -12,9 +12,25 @@
  */
 package org.openhab.binding.huesync.internal.connector;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import javax.ws.rs.core.HttpHeaders;
 
@@ -23,22 +39,31 @@ import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.api.Result;
-import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.ByteBufferContentProvider;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncDeviceInfo;
+import org.openhab.binding.huesync.internal.HueSyncEntertainmentAreas;
 import org.openhab.binding.huesync.internal.HueSyncState;
 import org.openhab.binding.huesync.internal.config.HueSyncConfiguration;
-import org.openhab.core.id.InstanceUUID;
+import org.openhab.binding.huesync.internal.connector.HueSyncCommandQueue.CommandCallback;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics.RequestType;
+import org.openhab.core.library.types.OnOffType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 
 /**
  * The {@link HueSyncApiConnector} class makes the api-connection to the huesync-box.
  * It is also responsible for sending commands to the huesync-box.
- * *
+ *
+ * All requests are sent asynchronously. The next status poll or pairing attempt is scheduled when the previous
+ * request has completed, so no scheduler thread ever waits for the network.
  *
  * @author Marco Kawon - Initial Contribution
  */
@@ -46,26 +71,91 @@ public class HueSyncApiConnector {
 
     private final String apiUrl;
     private final HttpClient httpClient;
-    private final JsonParser jsonParser = new JsonParser();
+    private final HueSyncStateDecoder decoder = new HueSyncStateDecoder();
+    private final HueSyncCommandQueue commandQueue;
+    // Runs the polls and the handling of responses, on virtual threads if enabled
+    private final Executor ioExecutor;
+    // Limits the requests sent to the box, polls are shed before commands are delayed
+    private final HueSyncRateLimiter rateLimiter;
+    private final HueSyncPollingStrategy pollingStrategy;
 
     private static final String URL_DEVICE_INFO = "/device";
-    private static final String URL_EXEC_COMMAND = "/execution";
-    private static final String URL_REGISTRATION = "/registrations";
+    private static final String URL_EXECUTION = "/execution";
+    private static final String URL_HDMI = "/hdmi";
+    private static final String URL_HUE = "/hue";
+    private static final long DEVICE_INFO_TTL_MS = TimeUnit.HOURS.toMillis(24);
+    private static final long DEVICE_POLLING_INTERVAL_SECONDS = TimeUnit.HOURS.toSeconds(1);
+    private static final long ENTERTAINMENT_AREAS_TTL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final String CONTENT_TYPE_JSON = "application/json";
     private static final int REQUEST_TIMEOUT_MS = 5000; // 5 seconds
-
-    private ScheduledFuture<?> pollingJob;
+    private static final long DUE_TOLERANCE_MS = 1000;
+    private static final HueSyncChannel[] HDMI_CHANNELS = hdmiChannels();
+
+    private final HueSyncPairingService pairingService;
+    private final HueSyncPairingService.PairingListener pairingListener = new ConnectorPairingListener();
+    private HueSyncPollingCoordinator.Registration pollRegistration;
+    private final HueSyncPollingCoordinator pollingCoordinator;
+    private final HueSyncCircuitBreaker circuitBreaker;
+    private final HueSyncMetrics metrics;
     private Logger logger = LoggerFactory.getLogger(HueSyncApiConnector.class);
     private ScheduledExecutorService scheduler;
     private HueSyncState state;
     private HueSyncConfiguration config;
 
+    private final Set<Request> pendingRequests = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    // The sections of the api which are polled independently
+    private final PollSection executionSection;
+    private final PollSection hdmiSection;
+    private final PollSection deviceSection;
+    private final PollSection[] sections;
+    private final AtomicLong changedFetches = new AtomicLong();
+    private final AtomicLong unchangedFetches = new AtomicLong();
+    private volatile @Nullable HueSyncDeviceInfo deviceInfo;
+    private volatile @Nullable HueSyncEntertainmentAreas entertainmentAreas;
+    private final AtomicBoolean entertainmentAreasRefreshInProgress = new AtomicBoolean();
+    private final AtomicBoolean deviceInfoRefreshInProgress = new AtomicBoolean();
+    private volatile boolean probing;
+    private final AtomicBoolean pollInProgress = new AtomicBoolean();
+    private volatile boolean disposed;
+
     public HueSyncApiConnector(HueSyncConfiguration config, HueSyncState state, ScheduledExecutorService scheduler,
-            HttpClient httpClient) {
+            HttpClient httpClient, HueSyncPollingCoordinator pollingCoordinator, HueSyncPairingService pairingService,
+            HueSyncCircuitBreaker circuitBreaker, HueSyncRateLimiter rateLimiter, HueSyncMetrics metrics) {
         this.config = config;
+        this.rateLimiter = rateLimiter;
+        this.pairingService = pairingService;
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
         this.scheduler = scheduler;
+        this.pollingCoordinator = pollingCoordinator;
         this.state = state;
         this.apiUrl = String.format("https://%s/api/v1", config.getHost());
         this.httpClient = httpClient;
+        this.pollingStrategy = new HueSyncPollingStrategy(config);
+        this.commandQueue = new HueSyncCommandQueue(scheduler, this::sendExecCommand, config.commandBatchWindow);
+        this.ioExecutor = HueSyncExecutors.create("OH-binding-huesync-" + config.getHost(), config.virtualThreads);
+        this.executionSection = new PollSection(URL_EXECUTION, HueSyncExecutionCommand.CHANNELS,
+                config.httpPollingInterval, reader -> decoder.decodeExecution(reader, state));
+        // the options of the input channel are labelled with the names of the hdmi inputs
+        this.hdmiSection = new PollSection(URL_HDMI, HDMI_CHANNELS, config.hdmiPollingInterval,
+                reader -> decoder.decodeHdmi(reader, state), HueSyncChannel.INPUT);
+        // the device section has no channels, it is polled to detect firmware updates of the box
+        this.deviceSection = new PollSection(URL_DEVICE_INFO, new HueSyncChannel[0], DEVICE_POLLING_INTERVAL_SECONDS,
+                reader -> devicePolled(decoder.decodeDeviceInfo(reader)));
+        this.sections = new PollSection[] { executionSection, hdmiSection, deviceSection };
+    }
+
+    private static HueSyncChannel[] hdmiChannels() {
+        List<HueSyncChannel> channels = new ArrayList<>();
+        for (int port = 0; port < HueSyncChannel.PORT_NAME.length; port++) {
+            channels.add(HueSyncChannel.PORT_NAME[port]);
+            channels.add(HueSyncChannel.PORT_TYPE[port]);
+            channels.add(HueSyncChannel.PORT_STATUS[port]);
+            channels.add(HueSyncChannel.PORT_LASTMODE[port]);
+        }
+        return channels.toArray(new HueSyncChannel[0]);
     }
 
     public HueSyncState getState() {
@@ -74,201 +164,802 @@ public class HueSyncApiConnector {
 
     /**
      * Set up the connection to the huesync box by starting to poll the HTTP API.
+     *
+     * The device information is only requested if it is not known or has expired. Otherwise the first poll of
+     * the box state is the only probe of the connection.
+     *
+     * @param knownDeviceInfo the cached device information, or null if it is not known
+     * @param knownEntertainmentAreas the entertainment areas received by a previous connection, or null
      */
-    public void createConnection() {
-        if (setConfigProperties()) {
-            if (config.getApiAccessToken().isBlank()) {
-                startPairingProcess();
-            } else {
-                startStatusPolling();
-            }
+    public void createConnection(@Nullable HueSyncDeviceInfo knownDeviceInfo,
+            @Nullable HueSyncEntertainmentAreas knownEntertainmentAreas) {
+        deviceInfo = knownDeviceInfo;
+        entertainmentAreas = knownEntertainmentAreas;
+        if (config.getApiAccessToken().isBlank()) {
+            setConfigProperties(this::startPairingProcess);
+        } else if (knownDeviceInfo == null || knownDeviceInfo.isExpired(DEVICE_INFO_TTL_MS)) {
+            setConfigProperties(this::startStatusPolling);
+        } else {
+            logger.debug("Using cached device information, probing the box with the first poll");
+            startStatusPolling();
         }
     }
 
-    private void startStatusPolling() {
+    private synchronized void startStatusPolling() {
         stopPolling();
-
-        pollingJob = scheduler.scheduleWithFixedDelay(() -> {
-            updateBoxState();
-        }, 0, config.httpPollingInterval, TimeUnit.SECONDS);
+        if (disposed) {
+            return;
+        }
+        probing = true;
+        pollRegistration = pollingCoordinator.register(config.getHost(),
+                onDone -> ioExecutor.execute(() -> updateBoxState(onDone)));
+        pollRegistration.scheduleFirst(config.httpPollingInterval);
 
         logger.debug("HTTP polling started.");
     }
 
-    private boolean isPolling() {
-        return pollingJob != null && !pollingJob.isCancelled();
+    private synchronized void schedulePoll(long delaySeconds) {
+        if (disposed || pollRegistration == null) {
+            return;
+        }
+        pollRegistration.schedule(delaySeconds);
+    }
+
+    private synchronized boolean isPolling() {
+        return pollRegistration != null && !pollRegistration.isCancelled();
     }
 
-    private void stopPolling() {
+    private synchronized void stopPolling() {
         if (isPolling()) {
-            pollingJob.cancel(true);
+            pollRegistration.cancel();
             logger.debug("HTTP polling stopped.");
         }
     }
 
     /**
-     * Shutdown the http client
+     * @return the number of polls which have been shed by the rate limiter
+     */
+    public long getShedPolls() {
+        return rateLimiter.getShedPolls();
+    }
+
+    /**
+     * @return the number of commands which had to wait for the rate limiter
+     */
+    public long getDelayedCommands() {
+        return rateLimiter.getDelayedCommands();
+    }
+
+    /**
+     * @return the number of requests sent to the box by this connector
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of polls whose response differed from the previous one and was decoded
+     */
+    public long getChangedFetches() {
+        return changedFetches.get();
+    }
+
+    /**
+     * @return the number of polls whose response was identical to the previous one and was not decoded
+     */
+    public long getUnchangedFetches() {
+        return unchangedFetches.get();
+    }
+
+    /**
+     * @return a description of the connections the http client keeps open to the box
+     */
+    public String getConnectionPoolDescription() {
+        return HueSyncHttpClientStatistics.describeConnectionPool(httpClient, config.getHost());
+    }
+
+    /**
+     * @return the time the last status poll waited for a free slot of the polling coordinator in milliseconds
+     */
+    public synchronized long getPollQueueLatencyMillis() {
+        return pollRegistration == null ? 0 : pollRegistration.getLastQueueLatencyMillis();
+    }
+
+    /**
+     * @return the longest time a status poll waited for a free slot of the polling coordinator in milliseconds
+     */
+    public synchronized long getMaxPollQueueLatencyMillis() {
+        return pollRegistration == null ? 0 : pollRegistration.getMaxQueueLatencyMillis();
+    }
+
+    /**
+     * Stop polling and abort all requests which are still in progress
      */
     public void dispose() {
         logger.trace("disposing connector");
+        disposed = true;
         stopPolling();
+        pairingService.cancel(config.getHost(), pairingListener);
+        commandQueue.dispose();
+        // the rate limiter is owned by the handler and outlives the connector
+        rateLimiter.rejectWaitingCommands();
+        for (Request request : pendingRequests) {
+            request.abort(new CancellationException("Connector disposed"));
+        }
+        pendingRequests.clear();
+        state.clearPending();
     }
 
     protected void startPairingProcess() {
-        logger.info("Creating new user on huesync-box");
+        logger.debug("Creating new user on huesync-box");
 
         stopPolling();
+        if (!disposed) {
+            pairingService.pair(config.getHost(), pairingListener);
+        }
+    }
 
-        String url = apiUrl + URL_REGISTRATION;
-        String command = "{\"appName\":\"openhab\",\"instanceName\":\"huesync-" + InstanceUUID.get() + "\"}";
-
-        pollingJob = scheduler.scheduleWithFixedDelay(() -> {
-            try {
-                logger.debug("Sending registration command '{}' to '{}'", command, url);
-                String jsonString = httpClient.newRequest(url).method(HttpMethod.POST)
-                        .header(HttpHeader.CONTENT_TYPE, "application/json").timeout(2, TimeUnit.SECONDS)
-                        .content(new StringContentProvider(command)).send().getContentAsString();
-                JsonObject jsonObject = jsonParser.parse(jsonString).getAsJsonObject();
-                logger.trace("Received response: {}", jsonObject);
-
-                if (jsonObject.get("accessToken") != null) {
-                    String accessToken = jsonObject.get("accessToken").getAsString();
-                    logger.info("Pairing with huesync-box successfully finished");
-                    config.setApiAccessToken(accessToken);
-                    startStatusPolling();
+    /**
+     * Receives the result of the pairing session of the box
+     */
+    private class ConnectorPairingListener implements HueSyncPairingService.PairingListener {
+        @Override
+        public void pairingProgress(String message) {
+            ioExecutor.execute(() -> {
+                if (!disposed) {
+                    state.pairingProgress(message);
+                }
+            });
+        }
+
+        @Override
+        public void pairingCompleted(String apiAccessToken) {
+            ioExecutor.execute(() -> {
+                if (disposed) {
                     return;
-                } else if (jsonObject.get("code") != null) {
-                    int statusCode = jsonObject.get("code").getAsInt();
-                    if (statusCode == 16) {
-                        logger.info(
-                                "Please press the pairing button on your HueSync Box for 3 seconds until the LED blinks green!");
-                    } else {
-                        logger.debug("Unhandled statusCode: {}", statusCode);
-                    }
-                } else {
-                    logger.debug("Unhandled response type: {}", jsonObject);
                 }
-            } catch (Exception e) {
-                logger.error("Error sending registration command: {}", e.getMessage());
-            }
-        }, 0, 3, TimeUnit.SECONDS);
+                config.setApiAccessToken(apiAccessToken);
+                state.pairingCompleted(apiAccessToken);
+                startStatusPolling();
+            });
+        }
+
+        @Override
+        public void pairingFailed(String message) {
+            ioExecutor.execute(() -> {
+                if (!disposed) {
+                    // retry the pairing when the circuit is probed again
+                    circuitBreaker.trip();
+                    connectionError(message);
+                }
+            });
+        }
+
+        @Override
+        public void registrationRequestCompleted(long durationNanos, @Nullable Throwable failure) {
+            requestCount.incrementAndGet();
+            recordRequest(RequestType.REGISTRATION, durationNanos, failure);
+        }
     }
 
-    public void sendExecCommand(String command) {
-        if (command == null || command.isBlank()) {
-            logger.warn("Can not send empty command to huesync-box!");
+    /**
+     * Queue an execution command. Commands queued within the configured batch window are merged and sent to
+     * the box together in one request.
+     */
+    public void queueCommand(HueSyncExecutionCommand command) {
+        queueCommand(command, null);
+    }
+
+    /**
+     * Queue an execution command.
+     *
+     * @param callback notified when the box has accepted or rejected the command, or null
+     */
+    public void queueCommand(HueSyncExecutionCommand command, @Nullable CommandCallback callback) {
+        boolean applied = false;
+        boolean queued = false;
+        // the queue is locked, so a command completing meanwhile does not see the channels before they are queued
+        synchronized (commandQueue) {
+            if (!disposed) {
+                command.applyTo(state);
+                applied = true;
+                queued = commandQueue.put(command, callback);
+            }
+        }
+        // the state and the callback are notified after the queue has been unlocked
+        if (queued) {
+            state.publish();
             return;
         }
+        logger.debug("Command '{}' discarded, the connector has been disposed", command);
+        if (applied) {
+            // disposed meanwhile, the channels must not stay pending
+            commandCompleted(command, false);
+        }
+        if (callback != null) {
+            callback.commandCompleted(false);
+        }
+    }
 
-        String url = apiUrl + URL_EXEC_COMMAND;
-        logger.debug("Sending command '{}' to '{}'", command, URL_EXEC_COMMAND);
-        httpClient.newRequest(url).method(HttpMethod.PUT).header(HttpHeader.CONTENT_TYPE, "application/json")
+    private void sendExecCommand(HueSyncExecutionCommand command, ByteBuffer body, CommandCallback onComplete) {
+        String url = apiUrl + URL_EXECUTION;
+        logger.debug("Sending command '{}' to '{}'", command, URL_EXECUTION);
+        Request request = httpClient.newRequest(url).method(HttpMethod.PUT)
                 .timeout(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + config.getApiAccessToken())
-                .content(new StringContentProvider(command)).send(new Response.CompleteListener() {
-                    @Override
-                    public void onComplete(Result result) {
-                        logger.debug("Status code {}", result.getResponse().getStatus());
-                        if (result.getResponse().getStatus() != 200) {
-                            logger.warn("Error {} while sending command", result.getResponse().getReason());
-                        }
+                .content(new ByteBufferContentProvider(CONTENT_TYPE_JSON, body));
+
+        rateLimiter.acquireCommand(() -> send(request, RequestType.EXECUTION, new Response.Listener.Adapter() {
+            @Override
+            public void onComplete(Result result) {
+                pendingRequests.remove(request);
+                ioExecutor.execute(() -> execCommandCompleted(command, result, onComplete));
+            }
+        }), () -> {
+            logger.debug("Command '{}' discarded, the connector has been disposed", command);
+            commandCompleted(command, false);
+            onComplete.commandCompleted(false);
+        });
+    }
+
+    private void execCommandCompleted(HueSyncExecutionCommand command, Result result, CommandCallback onComplete) {
+        boolean success = false;
+        if (result.isFailed()) {
+            logger.warn("Error while sending command: {}", result.getFailure().getMessage());
+        } else if (result.getResponse().getStatus() != HttpStatus.OK_200) {
+            logger.warn("Error {} while sending command", result.getResponse().getReason());
+        } else {
+            success = true;
+        }
+        commandCompleted(command, success);
+        long delay = pollingStrategy.commandSent();
+        onComplete.commandCompleted(success);
+        if (success && delay >= 0 && !pollInProgress.get()) {
+            // pull the next poll of the execution section forward to reconcile the commanded values
+            executionSection.scheduleIn(delay, System.currentTimeMillis());
+            schedulePoll(delay);
+        }
+    }
+
+    /**
+     * Report the completion of the command to the state. Channels which are set again by a queued command stay
+     * pending until that command has completed as well.
+     */
+    private void commandCompleted(HueSyncExecutionCommand command, boolean success) {
+        synchronized (commandQueue) {
+            for (HueSyncChannel channel : HueSyncExecutionCommand.CHANNELS) {
+                if (command.contains(channel) && !commandQueue.isQueued(channel)) {
+                    state.commandCompleted(channel, success);
+                }
+            }
+        }
+        state.publish();
+    }
+
+    private void setConfigProperties(Runnable onSuccess) {
+        logger.trace("setConfigProperties()");
+
+        // the connection can not be set up without the device information, so the request is never shed
+        rateLimiter.consume();
+        fetchDeviceInfo(error -> {
+            if (disposed) {
+                return;
+            } else if (error == null) {
+                onSuccess.run();
+            } else {
+                // the connection could not be set up at all, there is nothing to retry until the circuit is probed
+                circuitBreaker.trip();
+                connectionError(error);
+            }
+        });
+    }
+
+    /**
+     * The device section has been decoded. The device information is replaced if the firmware of the box has
+     * changed, the other values do not change without a firmware update.
+     */
+    private void devicePolled(HueSyncDeviceInfo polled) {
+        HueSyncDeviceInfo info = deviceInfo;
+        if (!disposed && (info == null || !info.getFirmwareVersion().equals(polled.getFirmwareVersion()))) {
+            logger.debug("Firmware of huesync-box changed to {}, updating the device information",
+                    polled.getFirmwareVersion());
+            deviceInfo = polled;
+            state.deviceInfoReceived(polled);
+        }
+    }
+
+    /**
+     * Request the device information again if it has expired.
+     */
+    private void refreshDeviceInfoIfOutdated() {
+        HueSyncDeviceInfo info = deviceInfo;
+        if (info != null && !info.isExpired(DEVICE_INFO_TTL_MS)) {
+            return;
+        }
+        if (!deviceInfoRefreshInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        if (!rateLimiter.tryAcquirePoll(1)) {
+            deviceInfoRefreshInProgress.set(false);
+            logger.debug("Device information is outdated, requesting it after the next poll");
+            return;
+        }
+        logger.debug("Device information is outdated, requesting it again");
+        fetchDeviceInfo(error -> {
+            deviceInfoRefreshInProgress.set(false);
+            if (error != null && !disposed) {
+                logger.debug("Failed to refresh the device information: {}", error);
+            }
+        });
+    }
+
+    /**
+     * Request the entertainment areas if the entertainment area channel is linked and the areas have not been
+     * received yet or have expired. The areas are requested on their own, so they never delay a poll.
+     */
+    private void refreshEntertainmentAreasIfOutdated() {
+        HueSyncEntertainmentAreas areas = entertainmentAreas;
+        if (disposed || !state.isLinked(HueSyncChannel.ENTERTAINMENT_AREA)
+                || (areas != null && !areas.isExpired(ENTERTAINMENT_AREAS_TTL_MS))) {
+            return;
+        }
+        if (!entertainmentAreasRefreshInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        if (!rateLimiter.tryAcquirePoll(1)) {
+            entertainmentAreasRefreshInProgress.set(false);
+            logger.debug("Requesting the entertainment areas after the next poll");
+            return;
+        }
+
+        logger.debug("Requesting the entertainment areas");
+        AtomicReference<@Nullable HueSyncEntertainmentAreas> received = new AtomicReference<>();
+        fetchJsonResponse(apiUrl + URL_HUE, true, RequestType.HUE,
+                reader -> received.set(decoder.decodeEntertainmentAreas(reader)), error -> {
+                    entertainmentAreasRefreshInProgress.set(false);
+                    HueSyncEntertainmentAreas receivedAreas = received.get();
+                    if (error == null && receivedAreas != null && !disposed) {
+                        entertainmentAreas = receivedAreas;
+                        state.entertainmentAreasReceived(receivedAreas);
+                    } else if (error != null && !disposed) {
+                        logger.debug("Failed to request the entertainment areas: {}", error);
                     }
                 });
+    }
 
-        // Update Box state immediately after sending exec-command
-        updateBoxState();
+    /**
+     * Request the device information and report it to the state.
+     *
+     * @param completion called with null if the information has been received, or with the error message
+     */
+    private void fetchDeviceInfo(Consumer<@Nullable String> completion) {
+        String url = apiUrl + URL_DEVICE_INFO;
+        AtomicReference<@Nullable HueSyncDeviceInfo> received = new AtomicReference<>();
+        fetchJsonResponse(url, false, RequestType.DEVICE, reader -> received.set(decoder.decodeDeviceInfo(reader)),
+                error -> {
+                    HueSyncDeviceInfo info = received.get();
+                    if (error == null && info != null && !disposed) {
+                        deviceInfo = info;
+                        // the firmware is checked again when the device section is due
+                        deviceSection.scheduleIn(deviceSection.defaultIntervalSeconds, System.currentTimeMillis());
+                        state.deviceInfoReceived(info);
+                    }
+                    completion.accept(error);
+                });
     }
 
-    private boolean setConfigProperties() {
-        logger.trace("setConfigProperties(): Not implemented yet ...");
+    private void updateBoxState(Runnable onDone) {
+        if (!pollInProgress.compareAndSet(false, true)) {
+            onDone.run();
+            return;
+        }
 
-        String url = apiUrl + URL_DEVICE_INFO;
-        JsonObject deviceData = getJsonResponse(url, false);
+        long now = System.currentTimeMillis();
+        boolean firstPoll = probing;
+        List<PollSection> due = new ArrayList<>(sections.length);
+        for (PollSection section : sections) {
+            // the device section is due right away unless the device information has just been requested
+            if ((firstPoll && section != deviceSection) || section.isDue(now)) {
+                if (section.isLinked()) {
+                    due.add(section);
+                } else {
+                    logger.trace("Skipping section {}, none of its channels is linked", section.path);
+                    section.scheduleIn(section.defaultIntervalSeconds, now);
+                }
+            }
+        }
+        if (due.isEmpty() && (firstPoll || executionSection.getRemainingMillis(now) <= 0)) {
+            // keep probing the connection even if no channel is linked
+            due.add(executionSection);
+        }
+        if (due.isEmpty()) {
+            pollInProgress.set(false);
+            onDone.run();
+            scheduleNextPoll(now);
+            return;
+        }
+        if (!rateLimiter.tryAcquirePoll(due.size())) {
+            // the sections stay due, they are polled as soon as the limiter has tokens for them again
+            long delay = TimeUnit.MILLISECONDS.toSeconds(rateLimiter.getPollDelayMillis(due.size()) + 999);
+            logger.debug("Shedding poll of huesync-box {}, polling again in {}s", due, delay);
+            pollInProgress.set(false);
+            onDone.run();
+            schedulePoll(Math.max(1, delay));
+            return;
+        }
+        logger.debug("Updating state of huesync-box {} ...", due);
+
+        long version = state.getSnapshot().getVersion();
+        boolean reconcile = due.contains(executionSection) && state.beginReconcile();
+        AtomicInteger remaining = new AtomicInteger(due.size());
+        AtomicReference<@Nullable String> firstError = new AtomicReference<>();
+        for (PollSection section : due) {
+            // the sections are fetched in parallel, the poll completes when all responses have been received
+            fetchSection(section, reconcile && section == executionSection, error -> {
+                if (error != null) {
+                    firstError.compareAndSet(null, error);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    pollCompleted(due, version, firstError.get(), onDone);
+                }
+            });
+        }
+    }
 
-        return (deviceData != null);
+    private void pollCompleted(List<PollSection> polled, long version, @Nullable String error, Runnable onDone) {
+        state.endReconcile(error == null);
+        if (error == null) {
+            state.publishPolled();
+        } else {
+            state.publish();
+        }
+        pollInProgress.set(false);
+        onDone.run();
+        if (disposed) {
+            return;
+        }
+
+        boolean firstPoll = probing;
+        probing = false;
+        long now = System.currentTimeMillis();
+        if (error == null) {
+            if (circuitBreaker.recordSuccess()) {
+                state.connectionEstablished();
+            }
+            refreshDeviceInfoIfOutdated();
+            refreshEntertainmentAreasIfOutdated();
+            for (PollSection section : polled) {
+                if (section == executionSection) {
+                    section.scheduleIn(pollingStrategy.nextDelaySeconds(state.getSnapshot().getVersion() != version,
+                            state.getState(HueSyncChannel.POWER) == OnOffType.ON), now);
+                } else {
+                    section.scheduleIn(section.defaultIntervalSeconds, now);
+                }
+            }
+        } else if (firstPoll) {
+            // the first poll probes the connection, there is nothing to retry until the circuit is probed again
+            circuitBreaker.trip();
+            connectionError(error);
+            return;
+        } else if (circuitBreaker.recordFailure()) {
+            connectionError(error);
+            return;
+        } else {
+            logger.debug("Polling huesync-box failed, trying again: {}", error);
+            long delay = pollingStrategy.nextDelaySeconds(false, true);
+            for (PollSection section : polled) {
+                section.scheduleIn(delay, now);
+            }
+        }
+        scheduleNextPoll(now);
+    }
+
+    /**
+     * Schedule the poll for the section which is due next
+     */
+    private void scheduleNextPoll(long now) {
+        long delayMillis = Long.MAX_VALUE;
+        for (PollSection section : sections) {
+            delayMillis = Math.min(delayMillis, section.getRemainingMillis(now));
+        }
+        long delay = TimeUnit.MILLISECONDS.toSeconds(Math.max(0, delayMillis) + 999);
+        logger.trace("Next poll in {}s", delay);
+        schedulePoll(delay);
+    }
+
+    /**
+     * A channel has been linked. If its section is not polled yet, it is polled right away.
+     */
+    public void channelLinked(HueSyncChannel channel) {
+        if (channel == HueSyncChannel.ENTERTAINMENT_AREA && isPolling() && !probing) {
+            refreshEntertainmentAreasIfOutdated();
+        }
+        for (PollSection section : sections) {
+            if (section.contains(channel) && !section.hasBeenPolled()) {
+                section.dueNow();
+                if (!pollInProgress.get()) {
+                    schedulePoll(0);
+                }
+            }
+        }
     }
 
-    private void updateBoxState() {
-        logger.debug("Updating state of huesync-box ...");
+    /**
+     * Requests the given uri asynchronously and hands the received content to the decoder once the response is
+     * complete.
+     *
+     * @param completion called with null if the response was received and decoded successfully, or with the
+     *            error message otherwise
+     */
+    private void fetchJsonResponse(String uri, boolean auth, RequestType type, ResponseDecoder responseDecoder,
+            Consumer<@Nullable String> completion) {
+        logger.trace("fetchJsonResponse() from '{}' with auth '{}'", uri, auth);
+
+        Request request = httpClient.newRequest(uri);
+        request.timeout(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
 
-        String url = apiUrl;
-        JsonObject deviceData = getJsonResponse(url, true);
-        logger.trace("Received deviceData response: {}", deviceData);
+        if (auth) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + config.getApiAccessToken());
+        }
 
-        if (deviceData != null) {
-            try {
-                // Update Box Mode
-                String mode = deviceData.getAsJsonObject("execution").get("mode").getAsString();
-                state.setMode(mode);
-                if (deviceData.getAsJsonObject("execution").get(mode) != null) {
-                    state.setIntensity(deviceData.getAsJsonObject("execution").getAsJsonObject(mode).get("intensity")
-                            .getAsString());
+        send(request, type, new BufferingResponseListener() {
+            @Override
+            public void onComplete(Result result) {
+                pendingRequests.remove(request);
+                InputStream content = getContentAsInputStream();
+                ioExecutor.execute(() -> {
+                    if (disposed) {
+                        completion.accept("Connector disposed");
+                    } else {
+                        completion.accept(decodeResponse(result, content, responseDecoder));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Requests the document of a section. The content is collected in the reusable response buffer of the
+     * section. In differential mode, the document is not decoded if the box answers 304 to the entity tag of the
+     * previous response, or if the fingerprint of the content equals the one of the previous response.
+     *
+     * @param reconcile true if commanded values are to be reconciled, so the document is always decoded
+     * @param completion called with null if the state was updated or is unchanged, or with the error message
+     */
+    private void fetchSection(PollSection section, boolean reconcile, Consumer<@Nullable String> completion) {
+        Request request = httpClient.newRequest(apiUrl + section.path);
+        request.timeout(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        request.header(HttpHeaders.AUTHORIZATION, "Bearer " + config.getApiAccessToken());
+
+        if (section.divergenceCount != state.getDivergenceCount()) {
+            // the state diverged from the last decoded document, so an identical document must be decoded again
+            section.resetFingerprint();
+        }
+        String entityTag = section.lastEntityTag;
+        if (config.differentialFetch && !reconcile && entityTag != null) {
+            request.header(HttpHeader.IF_NONE_MATCH, entityTag);
+        }
+
+        section.responseBuffer.reset();
+        send(request, RequestType.STATE, new Response.Listener.Adapter() {
+            @Override
+            public void onContent(Response response, ByteBuffer content) {
+                try {
+                    section.responseBuffer.append(content);
+                } catch (IOException e) {
+                    response.abort(e);
+                }
+            }
+
+            @Override
+            public void onComplete(Result result) {
+                pendingRequests.remove(request);
+                ioExecutor.execute(() -> {
+                    if (disposed) {
+                        completion.accept("Connector disposed");
+                    } else {
+                        completion.accept(decodeSection(section, result, reconcile));
+                    }
+                });
+            }
+        });
+    }
+
+    private @Nullable String decodeSection(PollSection section, Result result, boolean reconcile) {
+        if (result.isFailed()) {
+            return "API Error: " + result.getFailure().getMessage();
+        }
+
+        ResponseDecoder sectionDecoder = reader -> {
+            // hold the state while decoding, so a snapshot published meanwhile never contains a partial document
+            synchronized (state) {
+                section.decoder.decode(reader);
+            }
+        };
+        Response response = result.getResponse();
+        if (config.differentialFetch) {
+            if (response.getStatus() == HttpStatus.NOT_MODIFIED_304) {
+                unchangedFetches.incrementAndGet();
+                section.polled = true;
+                return null;
+            }
+            if (response.getStatus() == HttpStatus.OK_200) {
+                long fingerprint = section.responseBuffer.fingerprint();
+                if (!reconcile && section.hasFingerprint && section.lastFingerprint == fingerprint) {
+                    logger.trace("Section {} is unchanged, skipping decoding", section.path);
+                    unchangedFetches.incrementAndGet();
+                    section.polled = true;
+                    return null;
+                }
+                changedFetches.incrementAndGet();
+                long divergenceCount = state.getDivergenceCount();
+                String error = decodeResponse(result, section.responseBuffer.getInputStream(), sectionDecoder);
+                section.divergenceCount = state.getDivergenceCount();
+                if (error == null && section.divergenceCount == divergenceCount) {
+                    section.lastFingerprint = fingerprint;
+                    section.hasFingerprint = true;
+                    section.lastEntityTag = response.getHeaders().get(HttpHeader.ETAG);
+                } else {
+                    // values of the document have been ignored, it must not be skipped the next time
+                    section.resetFingerprint();
                 }
+                section.polled |= error == null;
+                return error;
+            }
+        }
+        String error = decodeResponse(result, section.responseBuffer.getInputStream(), sectionDecoder);
+        section.polled |= error == null;
+        return error;
+    }
+
+    /**
+     * @return null if the response was decoded successfully, the error message otherwise
+     */
+    private @Nullable String decodeResponse(Result result, InputStream content, ResponseDecoder responseDecoder) {
+        if (result.isFailed()) {
+            return "API Error: " + result.getFailure().getMessage();
+        }
+
+        Response response = result.getResponse();
+        if (response.getStatus() != HttpStatus.OK_200) {
+            return "API Error: " + response.getStatus() + " " + response.getReason();
+        }
+
+        long start = System.nanoTime();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            responseDecoder.decode(reader);
+            metrics.recordDecode(System.nanoTime() - start);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return "Internal Error while updating box state: " + e.getMessage();
+        }
+    }
 
-                // Update Box State
-                state.setPower(deviceData.getAsJsonObject("execution").get("hdmiActive").getAsBoolean());
-                state.setInput(deviceData.getAsJsonObject("execution").get("hdmiSource").getAsString());
-                state.setSyncStatus(deviceData.getAsJsonObject("execution").get("syncActive").getAsBoolean());
-                state.setBrightness(deviceData.getAsJsonObject("execution").get("brightness").getAsInt() / 2);
-
-                JsonObject input1 = deviceData.getAsJsonObject("hdmi").getAsJsonObject("input1");
-                state.setInput1Name(input1.get("name").getAsString());
-                state.setInput1Type(input1.get("type").getAsString());
-                state.setInput1Status(input1.get("status").getAsString());
-                state.setInput1LastMode(input1.get("lastSyncMode").getAsString());
-
-                JsonObject input2 = deviceData.getAsJsonObject("hdmi").getAsJsonObject("input2");
-                state.setInput2Name(input2.get("name").getAsString());
-                state.setInput2Type(input2.get("type").getAsString());
-                state.setInput2Status(input2.get("status").getAsString());
-                state.setInput2LastMode(input2.get("lastSyncMode").getAsString());
-
-                JsonObject input3 = deviceData.getAsJsonObject("hdmi").getAsJsonObject("input3");
-                state.setInput3Name(input3.get("name").getAsString());
-                state.setInput3Type(input3.get("type").getAsString());
-                state.setInput3Status(input3.get("status").getAsString());
-                state.setInput3LastMode(input3.get("lastSyncMode").getAsString());
-
-                JsonObject input4 = deviceData.getAsJsonObject("hdmi").getAsJsonObject("input4");
-                state.setInput4Name(input4.get("name").getAsString());
-                state.setInput4Type(input4.get("type").getAsString());
-                state.setInput4Status(input4.get("status").getAsString());
-                state.setInput4LastMode(input4.get("lastSyncMode").getAsString());
-
-                JsonObject output = deviceData.getAsJsonObject("hdmi").getAsJsonObject("output");
-                state.setOutputName(output.get("name").getAsString());
-                state.setOutputType(output.get("type").getAsString());
-                state.setOutputStatus(output.get("status").getAsString());
-                state.setOutputLastMode(output.get("lastSyncMode").getAsString());
-            } catch (Exception e) {
-                stopPolling();
-                state.connectionError("Internal Error while updating box state: " + e.getMessage());
+    private void send(Request request, RequestType type, Response.CompleteListener listener) {
+        requestCount.incrementAndGet();
+        pendingRequests.add(request);
+
+        long start = System.nanoTime();
+        request.onComplete(result -> recordRequest(type, System.nanoTime() - start, result.getFailure()));
+        request.send(listener);
+    }
+
+    private void recordRequest(RequestType type, long durationNanos, @Nullable Throwable failure) {
+        metrics.recordRequest(type, durationNanos);
+        if (failure != null) {
+            metrics.recordError();
+            if (failure instanceof TimeoutException) {
+                metrics.recordTimeout();
             }
         }
     }
 
-    @Nullable
-    private JsonObject getJsonResponse(String uri, Boolean auth) {
-        logger.trace("getJsonResponse() from '{}' with auth '{}'", uri, auth);
-        try {
-            Request request = httpClient.newRequest(uri);
-            request.timeout(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    private void connectionError(String errorMessage) {
+        stopPolling();
+        state.connectionError(errorMessage);
+    }
+
+    @FunctionalInterface
+    private interface ResponseDecoder {
+        void decode(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * A section of the api which is polled on its own interval. The differential fetch state and the response
+     * buffer are only accessed by the single poll in progress.
+     */
+    private final class PollSection {
+        private final String path;
+        private final HueSyncChannel[] channels;
+        private final HueSyncChannel[] dependentChannels;
+        private final long defaultIntervalSeconds;
+        private final ResponseDecoder decoder;
+        private final HueSyncResponseBuffer responseBuffer = new HueSyncResponseBuffer();
+
+        private long lastFingerprint;
+        private boolean hasFingerprint;
+        private @Nullable String lastEntityTag;
+        private long divergenceCount;
+        private volatile boolean polled;
+        private volatile long intervalMillis;
+        private volatile long nextDueMillis;
+
+        /**
+         * @param dependentChannels channels which are not part of the section but need its values, e.g. for
+         *            their state description
+         */
+        PollSection(String path, HueSyncChannel[] channels, long defaultIntervalSeconds, ResponseDecoder decoder,
+                HueSyncChannel... dependentChannels) {
+            this.path = path;
+            this.channels = channels;
+            this.dependentChannels = dependentChannels;
+            this.defaultIntervalSeconds = defaultIntervalSeconds;
+            this.decoder = decoder;
+            this.intervalMillis = TimeUnit.SECONDS.toMillis(defaultIntervalSeconds);
+        }
+
+        boolean contains(HueSyncChannel channel) {
+            return contains(channels, channel) || contains(dependentChannels, channel);
+        }
+
+        private boolean contains(HueSyncChannel[] sectionChannels, HueSyncChannel channel) {
+            for (HueSyncChannel sectionChannel : sectionChannels) {
+                if (sectionChannel == channel) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return true if one of the channels of the section is linked, a section without channels is always
+         *         polled
+         */
+        boolean isLinked() {
+            return channels.length == 0 || isAnyLinked(channels) || isAnyLinked(dependentChannels);
+        }
 
-            if (auth) {
-                request.header(HttpHeaders.AUTHORIZATION, "Bearer " + config.getApiAccessToken());
+        private boolean isAnyLinked(HueSyncChannel[] sectionChannels) {
+            for (HueSyncChannel channel : sectionChannels) {
+                if (state.isLinked(channel)) {
+                    return true;
+                }
             }
+            return false;
+        }
 
-            String jsonString = request.send().getContentAsString();
-            JsonObject jsonObject = jsonParser.parse(jsonString).getAsJsonObject();
+        boolean hasBeenPolled() {
+            return polled;
+        }
 
-            logger.trace("jsonString: {}", jsonString);
+        /**
+         * @return true if the section is due, allowing for the jitter of the polling coordinator
+         */
+        boolean isDue(long now) {
+            return getRemainingMillis(now) <= Math.max(DUE_TOLERANCE_MS, intervalMillis / 10);
+        }
 
-            return jsonObject;
-        } catch (Exception e) {
-            stopPolling();
-            state.connectionError("API Error: " + e.getMessage());
+        long getRemainingMillis(long now) {
+            return nextDueMillis - now;
         }
 
-        return null;
+        void scheduleIn(long delaySeconds, long now) {
+            intervalMillis = TimeUnit.SECONDS.toMillis(delaySeconds);
+            nextDueMillis = now + intervalMillis;
+        }
+
+        void dueNow() {
+            nextDueMillis = 0;
+        }
+
+        void resetFingerprint() {
+            hasFingerprint = false;
+            lastEntityTag = null;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
     }
 }
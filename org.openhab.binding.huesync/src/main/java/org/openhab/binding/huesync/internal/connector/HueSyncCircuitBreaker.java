@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link HueSyncCircuitBreaker} decides when the connection to a huesync-box is considered broken and when
+ * it is tried again.
+ *
+ * While the circuit is closed, failed polls are counted and the circuit opens when the failure threshold is
+ * reached. An open circuit stays open for the open duration, which doubles with every consecutive opening up
+ * to the maximal duration and is jittered by up to 20 percent. Afterwards the circuit is half-open: a single
+ * probe is made, its success closes the circuit, its failure opens it again.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncCircuitBreaker {
+
+    private static final double JITTER_FACTOR = 0.2;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final long maxOpenDurationMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int consecutiveOpenings;
+    private long openUntilMillis;
+
+    /**
+     * @param failureThreshold the number of consecutive failed polls which open the circuit
+     * @param openDurationSeconds the time the circuit stays open after it opened for the first time
+     * @param maxOpenDurationSeconds the upper limit of the time the circuit stays open
+     */
+    public HueSyncCircuitBreaker(int failureThreshold, long openDurationSeconds, long maxOpenDurationSeconds) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = TimeUnit.SECONDS.toMillis(openDurationSeconds);
+        this.maxOpenDurationMillis = Math.max(openDurationMillis, TimeUnit.SECONDS.toMillis(maxOpenDurationSeconds));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the number of times the circuit opened since it was closed the last time
+     */
+    public synchronized int getConsecutiveOpenings() {
+        return consecutiveOpenings;
+    }
+
+    /**
+     * Record a failed poll.
+     *
+     * @return true if the circuit is open now
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open();
+        }
+        return state == State.OPEN;
+    }
+
+    /**
+     * Open the circuit regardless of the failure threshold, e.g. if the connection could not be set up at all.
+     */
+    public synchronized void trip() {
+        if (state != State.OPEN) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        consecutiveOpenings++;
+
+        long duration = openDurationMillis;
+        for (int i = 1; i < consecutiveOpenings && duration < maxOpenDurationMillis; i++) {
+            duration *= 2;
+        }
+        duration = Math.min(duration, maxOpenDurationMillis);
+        long jitter = (long) (duration * JITTER_FACTOR);
+        if (jitter > 0) {
+            duration += ThreadLocalRandom.current().nextLong(-jitter, jitter);
+        }
+        openUntilMillis = System.currentTimeMillis() + duration;
+    }
+
+    /**
+     * @return the time in milliseconds until an open circuit may be probed
+     */
+    public synchronized long getRemainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openUntilMillis - System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * Switch an open circuit to half-open before the probe is made.
+     */
+    public synchronized void halfOpen() {
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+        }
+    }
+
+    /**
+     * Record a successful poll.
+     *
+     * @return true if the circuit was not closed before
+     */
+    public synchronized boolean recordSuccess() {
+        boolean wasOpen = state != State.CLOSED;
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        consecutiveOpenings = 0;
+        return wasOpen;
+    }
+}
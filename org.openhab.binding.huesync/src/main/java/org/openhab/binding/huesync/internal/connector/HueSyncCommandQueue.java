@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+
+/**
+ * The {@link HueSyncCommandQueue} collects the execution commands sent to one huesync-box.
+ * Commands queued within the configured window are merged into a single command, a later value for the same
+ * field replaces the earlier one. Only one batch is in flight at a time, commands queued meanwhile are sent
+ * together once the previous batch has completed.
+ *
+ * The queue owns two commands and one body buffer which are reused for every batch: the pending command
+ * collects new fields while the sending command and the buffer belong to the batch in flight. Callers which need
+ * to know whether their command reached the box pass a callback, it is notified when the batch containing the
+ * command has completed.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncCommandQueue {
+
+    /**
+     * Sends an encoded execution command and reports its completion.
+     */
+    @FunctionalInterface
+    public interface CommandSender {
+        /**
+         * @param command the merged command, valid until <code>onComplete</code> is called
+         * @param body the encoded command, valid until <code>onComplete</code> is called
+         * @param onComplete to be called when the request has completed
+         */
+        void send(HueSyncExecutionCommand command, ByteBuffer body, CommandCallback onComplete);
+    }
+
+    /**
+     * Is notified when a command has been sent to the box.
+     */
+    @FunctionalInterface
+    public interface CommandCallback {
+        /**
+         * @param success true if the box accepted the command
+         */
+        void commandCompleted(boolean success);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final CommandSender sender;
+    private final long windowMillis;
+
+    private final ByteBuffer body = ByteBuffer.allocate(HueSyncExecutionCommand.MAX_ENCODED_LENGTH);
+    private HueSyncExecutionCommand pending = new HueSyncExecutionCommand();
+    private HueSyncExecutionCommand sending = new HueSyncExecutionCommand();
+    private List<CommandCallback> pendingCallbacks = new ArrayList<>();
+    private List<CommandCallback> sendingCallbacks = new ArrayList<>();
+    private @Nullable ScheduledFuture<?> flushJob;
+    private boolean inFlight;
+    private boolean disposed;
+
+    public HueSyncCommandQueue(ScheduledExecutorService scheduler, CommandSender sender, long windowMillis) {
+        this.scheduler = scheduler;
+        this.sender = sender;
+        this.windowMillis = Math.max(0, windowMillis);
+    }
+
+    /**
+     * Queue the fields of the command.
+     */
+    public boolean put(HueSyncExecutionCommand command) {
+        return put(command, null);
+    }
+
+    /**
+     * Queue the fields of the command.
+     *
+     * @param callback notified when the batch containing the command has completed, or null
+     * @return false if the queue has been disposed and the command was discarded, the callback is not notified then
+     */
+    public synchronized boolean put(HueSyncExecutionCommand command, @Nullable CommandCallback callback) {
+        if (disposed) {
+            return false;
+        }
+        pending.merge(command);
+        if (callback != null) {
+            pendingCallbacks.add(callback);
+        }
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * @return true if a command which is waiting to be sent sets the value of the channel
+     */
+    public synchronized boolean isQueued(HueSyncChannel channel) {
+        return pending.contains(channel);
+    }
+
+    private void scheduleFlush() {
+        if (inFlight || flushJob != null) {
+            return;
+        }
+        flushJob = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        HueSyncExecutionCommand command;
+        synchronized (this) {
+            flushJob = null;
+            if (disposed || inFlight || pending.isEmpty()) {
+                return;
+            }
+            command = pending;
+            pending = sending;
+            pending.clear();
+            sending = command;
+            List<CommandCallback> callbacks = pendingCallbacks;
+            pendingCallbacks = sendingCallbacks;
+            sendingCallbacks = callbacks;
+            command.encode(body);
+            inFlight = true;
+        }
+        sender.send(command, body, this::batchCompleted);
+    }
+
+    private void batchCompleted(boolean success) {
+        List<CommandCallback> callbacks;
+        synchronized (this) {
+            inFlight = false;
+            if (!pending.isEmpty()) {
+                scheduleFlush();
+            }
+            if (sendingCallbacks.isEmpty()) {
+                return;
+            }
+            callbacks = List.copyOf(sendingCallbacks);
+            sendingCallbacks.clear();
+        }
+        for (CommandCallback callback : callbacks) {
+            callback.commandCompleted(success);
+        }
+    }
+
+    /**
+     * Discard all pending commands and stop sending
+     */
+    public void dispose() {
+        List<CommandCallback> callbacks;
+        synchronized (this) {
+            disposed = true;
+            pending.clear();
+            ScheduledFuture<?> job = flushJob;
+            if (job != null) {
+                job.cancel(false);
+                flushJob = null;
+            }
+            callbacks = List.copyOf(pendingCallbacks);
+            pendingCallbacks.clear();
+        }
+        for (CommandCallback callback : callbacks) {
+            callback.commandCompleted(false);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncState;
+
+/**
+ * The {@link HueSyncExecutionCommand} holds the fields of a <code>PUT /execution</code> request. Fields which
+ * are not set are not sent. The json fragments of the enumerated values are encoded once, so a command is
+ * written into a {@link ByteBuffer} without creating any strings.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncExecutionCommand {
+
+    private static final int NO_BRIGHTNESS = -1;
+
+    public static final int MAX_BRIGHTNESS = 200;
+
+    /**
+     * The channels which can be set by an execution command
+     */
+    public static final HueSyncChannel[] CHANNELS = { HueSyncChannel.POWER, HueSyncChannel.SYNC_STATUS,
+            HueSyncChannel.BRIGHTNESS, HueSyncChannel.MODE, HueSyncChannel.INTENSITY, HueSyncChannel.INPUT,
+            HueSyncChannel.ENTERTAINMENT_AREA };
+
+    public static final int MAX_ENTERTAINMENT_AREA_ID_LENGTH = 32;
+
+    // Longest possible body: all fields set, brightness with three digits, hue target with the longest area id
+    public static final int MAX_ENCODED_LENGTH = 192;
+
+    // The box addresses entertainment areas as hue target "groups/<id>"
+    private static final String HUE_TARGET_PREFIX = "groups/";
+
+    public enum Mode {
+        POWERSAVE("powersave"),
+        VIDEO("video"),
+        MUSIC("music"),
+        GAME("game");
+
+        private final String value;
+        private final byte[] fragment;
+
+        Mode(String value) {
+            this.value = value;
+            this.fragment = encode("\"mode\":\"" + value + "\"");
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static @Nullable Mode fromValue(String value) {
+            for (Mode mode : values()) {
+                if (mode.value.equals(value)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum Intensity {
+        SUBTLE("subtle"),
+        MODERATE("moderate"),
+        HIGH("high"),
+        INTENSE("intense");
+
+        private final String value;
+        private final byte[] fragment;
+
+        Intensity(String value) {
+            this.value = value;
+            this.fragment = encode("\"intensity\":\"" + value + "\"");
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static @Nullable Intensity fromValue(String value) {
+            for (Intensity intensity : values()) {
+                if (intensity.value.equals(value)) {
+                    return intensity;
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum Input {
+        INPUT1("input1"),
+        INPUT2("input2"),
+        INPUT3("input3"),
+        INPUT4("input4");
+
+        private final String value;
+        private final byte[] fragment;
+
+        Input(String value) {
+            this.value = value;
+            this.fragment = encode("\"hdmiSource\":\"" + value + "\"");
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static @Nullable Input fromValue(String value) {
+            for (Input input : values()) {
+                if (input.value.equals(value)) {
+                    return input;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final byte[] HDMI_ACTIVE_TRUE = encode("\"hdmiActive\":true");
+    private static final byte[] HDMI_ACTIVE_FALSE = encode("\"hdmiActive\":false");
+    private static final byte[] SYNC_ACTIVE_TRUE = encode("\"syncActive\":true");
+    private static final byte[] SYNC_ACTIVE_FALSE = encode("\"syncActive\":false");
+    private static final byte[] BRIGHTNESS = encode("\"brightness\":");
+    private static final String HUE_TARGET = "\"hueTarget\":\"" + HUE_TARGET_PREFIX;
+
+    private @Nullable Boolean hdmiActive;
+    private @Nullable Boolean syncActive;
+    private int brightness = NO_BRIGHTNESS;
+    private @Nullable Mode mode;
+    private @Nullable Intensity intensity;
+    private @Nullable Input input;
+    private @Nullable String entertainmentArea;
+    private byte @Nullable [] hueTargetFragment;
+
+    private static byte[] encode(String fragment) {
+        return fragment.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public HueSyncExecutionCommand withHdmiActive(boolean hdmiActive) {
+        this.hdmiActive = hdmiActive;
+        return this;
+    }
+
+    public HueSyncExecutionCommand withSyncActive(boolean syncActive) {
+        this.syncActive = syncActive;
+        return this;
+    }
+
+    /**
+     * @param brightness the brightness of the box, 0..200
+     */
+    public HueSyncExecutionCommand withBrightness(int brightness) {
+        this.brightness = Math.max(0, Math.min(MAX_BRIGHTNESS, brightness));
+        return this;
+    }
+
+    public HueSyncExecutionCommand withMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public HueSyncExecutionCommand withIntensity(Intensity intensity) {
+        this.intensity = intensity;
+        return this;
+    }
+
+    public HueSyncExecutionCommand withInput(Input input) {
+        this.input = input;
+        return this;
+    }
+
+    /**
+     * @param id the id of the entertainment area
+     * @throws IllegalArgumentException if the id is not a valid entertainment area id
+     */
+    public HueSyncExecutionCommand withEntertainmentArea(String id) {
+        if (!isValidEntertainmentAreaId(id)) {
+            throw new IllegalArgumentException("Invalid entertainment area id: " + id);
+        }
+        this.entertainmentArea = id;
+        this.hueTargetFragment = encode(HUE_TARGET + id + "\"");
+        return this;
+    }
+
+    /**
+     * @return true if the id is not empty, not longer than {@link #MAX_ENTERTAINMENT_AREA_ID_LENGTH} and only
+     *         consists of letters, digits, '-' and '_', so it can be written into the body without escaping
+     */
+    public static boolean isValidEntertainmentAreaId(String id) {
+        if (id.isEmpty() || id.length() > MAX_ENTERTAINMENT_AREA_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '-'
+                    && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param hueTarget the hue target as reported by the box, e.g. "groups/7"
+     * @return the id of the entertainment area, e.g. "7"
+     */
+    public static String toEntertainmentAreaId(String hueTarget) {
+        return hueTarget.startsWith(HUE_TARGET_PREFIX) ? hueTarget.substring(HUE_TARGET_PREFIX.length())
+                : hueTarget;
+    }
+
+    public @Nullable Boolean getHdmiActive() {
+        return hdmiActive;
+    }
+
+    public @Nullable Boolean getSyncActive() {
+        return syncActive;
+    }
+
+    /**
+     * @return the brightness, or a negative value if it is not set
+     */
+    public int getBrightness() {
+        return brightness;
+    }
+
+    public @Nullable Mode getMode() {
+        return mode;
+    }
+
+    public @Nullable Intensity getIntensity() {
+        return intensity;
+    }
+
+    public @Nullable Input getInput() {
+        return input;
+    }
+
+    public @Nullable String getEntertainmentArea() {
+        return entertainmentArea;
+    }
+
+    /**
+     * @return true if the command sets the value of the channel
+     */
+    public boolean contains(HueSyncChannel channel) {
+        switch (channel) {
+            case POWER:
+                return hdmiActive != null;
+            case SYNC_STATUS:
+                return syncActive != null;
+            case BRIGHTNESS:
+                return brightness != NO_BRIGHTNESS;
+            case MODE:
+                return mode != null;
+            case INTENSITY:
+                return intensity != null;
+            case INPUT:
+                return input != null;
+            case ENTERTAINMENT_AREA:
+                return entertainmentArea != null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Apply the fields of the command to the state as pending values, before the box has confirmed them.
+     */
+    public void applyTo(HueSyncState state) {
+        Boolean hdmiActiveValue = hdmiActive;
+        if (hdmiActiveValue != null) {
+            state.setPendingSwitch(HueSyncChannel.POWER, hdmiActiveValue);
+        }
+        Boolean syncActiveValue = syncActive;
+        if (syncActiveValue != null) {
+            state.setPendingSwitch(HueSyncChannel.SYNC_STATUS, syncActiveValue);
+        }
+        if (brightness != NO_BRIGHTNESS) {
+            state.setPendingPercent(HueSyncChannel.BRIGHTNESS, brightness / 2);
+        }
+        Mode modeValue = mode;
+        if (modeValue != null) {
+            state.setPendingString(HueSyncChannel.MODE, modeValue.getValue());
+        }
+        Intensity intensityValue = intensity;
+        if (intensityValue != null) {
+            state.setPendingString(HueSyncChannel.INTENSITY, intensityValue.getValue());
+        }
+        Input inputValue = input;
+        if (inputValue != null) {
+            state.setPendingString(HueSyncChannel.INPUT, inputValue.getValue());
+        }
+        String entertainmentAreaValue = entertainmentArea;
+        if (entertainmentAreaValue != null) {
+            state.setPendingString(HueSyncChannel.ENTERTAINMENT_AREA, entertainmentAreaValue);
+        }
+    }
+
+    /**
+     * Copy all fields which are set in the other command into this one, replacing the current values.
+     */
+    public void merge(HueSyncExecutionCommand other) {
+        if (other.hdmiActive != null) {
+            hdmiActive = other.hdmiActive;
+        }
+        if (other.syncActive != null) {
+            syncActive = other.syncActive;
+        }
+        if (other.brightness != NO_BRIGHTNESS) {
+            brightness = other.brightness;
+        }
+        if (other.mode != null) {
+            mode = other.mode;
+        }
+        if (other.intensity != null) {
+            intensity = other.intensity;
+        }
+        if (other.input != null) {
+            input = other.input;
+        }
+        if (other.entertainmentArea != null) {
+            entertainmentArea = other.entertainmentArea;
+            hueTargetFragment = other.hueTargetFragment;
+        }
+    }
+
+    /**
+     * @return true if no field is set
+     */
+    public boolean isEmpty() {
+        return hdmiActive == null && syncActive == null && brightness == NO_BRIGHTNESS && mode == null
+                && intensity == null && input == null && entertainmentArea == null;
+    }
+
+    /**
+     * Unset all fields
+     */
+    public void clear() {
+        hdmiActive = null;
+        syncActive = null;
+        brightness = NO_BRIGHTNESS;
+        mode = null;
+        intensity = null;
+        input = null;
+        entertainmentArea = null;
+        hueTargetFragment = null;
+    }
+
+    /**
+     * Write the command as json object into the buffer. The buffer is cleared first and flipped afterwards, so
+     * it is ready to be read.
+     *
+     * @param buffer a buffer with at least {@link #MAX_ENCODED_LENGTH} bytes capacity
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.clear();
+        buffer.put((byte) '{');
+
+        Boolean hdmiActiveValue = hdmiActive;
+        if (hdmiActiveValue != null) {
+            putFragment(buffer, hdmiActiveValue ? HDMI_ACTIVE_TRUE : HDMI_ACTIVE_FALSE);
+        }
+        Boolean syncActiveValue = syncActive;
+        if (syncActiveValue != null) {
+            putFragment(buffer, syncActiveValue ? SYNC_ACTIVE_TRUE : SYNC_ACTIVE_FALSE);
+        }
+        if (brightness != NO_BRIGHTNESS) {
+            putFragment(buffer, BRIGHTNESS);
+            putDigits(buffer, brightness);
+        }
+        Mode modeValue = mode;
+        if (modeValue != null) {
+            putFragment(buffer, modeValue.fragment);
+        }
+        Intensity intensityValue = intensity;
+        if (intensityValue != null) {
+            putFragment(buffer, intensityValue.fragment);
+        }
+        Input inputValue = input;
+        if (inputValue != null) {
+            putFragment(buffer, inputValue.fragment);
+        }
+        byte[] hueTargetValue = hueTargetFragment;
+        if (hueTargetValue != null) {
+            putFragment(buffer, hueTargetValue);
+        }
+
+        buffer.put((byte) '}');
+        buffer.flip();
+    }
+
+    private static void putFragment(ByteBuffer buffer, byte[] fragment) {
+        if (buffer.position() > 1) {
+            buffer.put((byte) ',');
+        }
+        buffer.put(fragment);
+    }
+
+    private static void putDigits(ByteBuffer buffer, int value) {
+        if (value >= 100) {
+            buffer.put((byte) ('0' + value / 100));
+        }
+        if (value >= 10) {
+            buffer.put((byte) ('0' + (value / 10) % 10));
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    @Override
+    public String toString() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_ENCODED_LENGTH);
+        encode(buffer);
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HueSyncExecutors} creates the executor a connector runs its polls and the handling of responses on.
+ *
+ * On a runtime with virtual threads (Java 21 and later) every task can run on its own virtual thread, so the
+ * decoding of responses never occupies the threads of the shared http client. The virtual thread api is looked
+ * up reflectively, as the binding is compiled for Java 11. On older runtimes, the tasks run directly on the
+ * calling thread as before.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public final class HueSyncExecutors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HueSyncExecutors.class);
+
+    /**
+     * Runs the tasks on the calling thread
+     */
+    public static final Executor DIRECT = Runnable::run;
+
+    // Thread.ofVirtual(), Thread.Builder.name(String, long) and Thread.Builder.factory(), looked up once
+    private static final @Nullable Method OF_VIRTUAL;
+    private static final @Nullable Method NAME;
+    private static final @Nullable Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = ofVirtual.getReturnType();
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Virtual threads are not supported by this Java runtime, using the shared threads instead");
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private HueSyncExecutors() {
+    }
+
+    /**
+     * @param threadName the name prefix of the virtual threads
+     * @param virtualThreads true if the tasks are to be run on virtual threads
+     * @return an executor starting a virtual thread per task, or {@link #DIRECT} if virtual threads are not
+     *         requested or not supported by the runtime
+     */
+    public static Executor create(String threadName, boolean virtualThreads) {
+        if (!virtualThreads) {
+            return DIRECT;
+        }
+        ThreadFactory factory = createVirtualThreadFactory(threadName);
+        if (factory == null) {
+            return DIRECT;
+        }
+        return task -> factory.newThread(task).start();
+    }
+
+    /**
+     * @return the factory of <code>Thread.ofVirtual().name(threadName, 0).factory()</code>, or null if virtual
+     *         threads are not available
+     */
+    private static @Nullable ThreadFactory createVirtualThreadFactory(String threadName) {
+        Method ofVirtual = OF_VIRTUAL;
+        Method name = NAME;
+        Method factory = FACTORY;
+        if (ofVirtual == null || name == null || factory == null) {
+            return null;
+        }
+        try {
+            Object builder = name.invoke(ofVirtual.invoke(null), threadName + "-", 0L);
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Failed to create virtual threads: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLSession;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.api.Destination;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
+
+/**
+ * The {@link HueSyncHttpClientStatistics} counts the connections and TLS handshakes of the binding's
+ * {@link HttpClient}. It is added as bean to the client, so it is registered with every new connection.
+ * The counters apply to all boxes, they are exported via JMX by the handler factory.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncHttpClientStatistics
+        implements Connection.Listener, SslHandshakeListener, HueSyncHttpClientStatisticsMXBean {
+
+    // A resumed session keeps the creation time of the session it was resumed from
+    private static final long RESUMED_SESSION_MIN_AGE_MS = 1000;
+
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder handshakes = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder failedHandshakes = new LongAdder();
+
+    @Override
+    public void onOpened(Connection connection) {
+        connectionsOpened.increment();
+    }
+
+    @Override
+    public void onClosed(Connection connection) {
+        connectionsClosed.increment();
+    }
+
+    @Override
+    public void handshakeSucceeded(Event event) {
+        handshakes.increment();
+        SSLSession session = event.getSSLEngine().getSession();
+        if (System.currentTimeMillis() - session.getCreationTime() > RESUMED_SESSION_MIN_AGE_MS) {
+            resumedHandshakes.increment();
+        }
+    }
+
+    @Override
+    public void handshakeFailed(Event event, Throwable failure) {
+        failedHandshakes.increment();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    @Override
+    public long getConnectionsClosed() {
+        return connectionsClosed.sum();
+    }
+
+    @Override
+    public long getHandshakes() {
+        return handshakes.sum();
+    }
+
+    @Override
+    public long getResumedHandshakes() {
+        return resumedHandshakes.sum();
+    }
+
+    @Override
+    public long getFailedHandshakes() {
+        return failedHandshakes.sum();
+    }
+
+    /**
+     * Describe the connection pool the client keeps for the given host.
+     *
+     * @return the active, idle and maximal number of connections, or "none" if no connection was made yet
+     */
+    public static String describeConnectionPool(HttpClient httpClient, String host) {
+        for (Destination destination : httpClient.getDestinations()) {
+            if (host.equalsIgnoreCase(destination.getHost()) && destination instanceof HttpDestination) {
+                Object pool = ((HttpDestination) destination).getConnectionPool();
+                if (pool instanceof AbstractConnectionPool) {
+                    AbstractConnectionPool connectionPool = (AbstractConnectionPool) pool;
+                    return String.format("active=%d, idle=%d, max=%d", connectionPool.getActiveConnectionCount(),
+                            connectionPool.getIdleConnectionCount(), connectionPool.getMaxConnectionCount());
+                }
+            }
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Management interface to export the {@link HueSyncHttpClientStatistics} of the binding via JMX.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public interface HueSyncHttpClientStatisticsMXBean {
+
+    long getConnectionsOpened();
+
+    long getConnectionsClosed();
+
+    long getHandshakes();
+
+    long getResumedHandshakes();
+
+    long getFailedHandshakes();
+}
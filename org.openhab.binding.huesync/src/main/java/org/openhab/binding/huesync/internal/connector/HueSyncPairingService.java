@@ -0,0 +1,336 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.openhab.core.id.InstanceUUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * The {@link HueSyncPairingService} pairs openHAB with huesync-boxes. There is at most one pairing session per
+ * host: handlers pairing with a box which is already being paired join the running session and are all
+ * notified of its result.
+ *
+ * A session posts a registration request to the box, asynchronously and again every few seconds, until the
+ * pairing button of the box has been pressed or the maximal pairing duration has passed. The progress is
+ * reported to the listeners, so it can be shown as thing status instead of being logged.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncPairingService {
+
+    private static final String URL_REGISTRATION = "https://%s/api/v1/registrations";
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final int REGISTRATION_TIMEOUT_MS = 2000;
+    private static final int REGISTRATION_INTERVAL_SECONDS = 3;
+    private static final long PAIRING_DURATION_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final int STATUS_BUTTON_NOT_PRESSED = 16;
+
+    /**
+     * Is notified about the progress and the result of a pairing session.
+     */
+    public interface PairingListener {
+        /**
+         * @param message describes what the session is waiting for
+         */
+        void pairingProgress(String message);
+
+        /**
+         * @param apiAccessToken the token received from the box
+         */
+        void pairingCompleted(String apiAccessToken);
+
+        /**
+         * The session ended without a token.
+         *
+         * @param message the reason
+         */
+        void pairingFailed(String message);
+
+        /**
+         * A registration request has completed.
+         *
+         * @param durationNanos the duration of the request
+         * @param failure the failure of the request, or null if a response has been received
+         */
+        void registrationRequestCompleted(long durationNanos, @Nullable Throwable failure);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncPairingService.class);
+
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PairingSession> sessions = new HashMap<>();
+
+    public HueSyncPairingService(HttpClient httpClient, ScheduledExecutorService scheduler) {
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Pair with the box. If the box is already being paired, the listener joins the running session.
+     */
+    public void pair(String host, PairingListener listener) {
+        PairingSession session;
+        boolean created = false;
+        synchronized (sessions) {
+            session = sessions.get(host);
+            if (session == null) {
+                session = new PairingSession(host);
+                sessions.put(host, session);
+                created = true;
+            }
+            session.listeners.add(listener);
+        }
+
+        if (created) {
+            logger.info("Pairing with huesync-box {}, please press its pairing button for 3 seconds", host);
+            session.sendRegistration();
+        } else {
+            logger.debug("Joining the running pairing session of huesync-box {}", host);
+            String progress = session.getLastProgress();
+            if (progress != null) {
+                listener.pairingProgress(progress);
+            }
+        }
+    }
+
+    /**
+     * Stop notifying the listener. The session is cancelled when it has no listeners left.
+     */
+    public void cancel(String host, PairingListener listener) {
+        PairingSession session;
+        synchronized (sessions) {
+            session = sessions.get(host);
+            if (session == null) {
+                return;
+            }
+            session.listeners.remove(listener);
+            if (!session.listeners.isEmpty()) {
+                return;
+            }
+            sessions.remove(host);
+        }
+        logger.debug("Pairing with huesync-box {} cancelled", host);
+        session.finish();
+    }
+
+    /**
+     * Cancel all sessions
+     */
+    public void dispose() {
+        List<PairingSession> running;
+        synchronized (sessions) {
+            running = List.copyOf(sessions.values());
+            sessions.clear();
+        }
+        for (PairingSession session : running) {
+            session.finish();
+        }
+    }
+
+    private void remove(PairingSession session) {
+        synchronized (sessions) {
+            sessions.remove(session.host, session);
+        }
+    }
+
+    private final class PairingSession {
+        private final String host;
+        private final String url;
+        private final long deadline;
+        private final List<PairingListener> listeners = new CopyOnWriteArrayList<>();
+
+        private @Nullable Request request;
+        private @Nullable ScheduledFuture<?> retryJob;
+        private @Nullable String lastProgress;
+        private boolean finished;
+
+        PairingSession(String host) {
+            this.host = host;
+            this.url = String.format(URL_REGISTRATION, host);
+            this.deadline = System.currentTimeMillis() + PAIRING_DURATION_MS;
+        }
+
+        void sendRegistration() {
+            String body = "{\"appName\":\"openhab\",\"instanceName\":\"huesync-" + InstanceUUID.get() + "\"}";
+            Request registration = httpClient.newRequest(url).method(HttpMethod.POST)
+                    .header(HttpHeader.CONTENT_TYPE, CONTENT_TYPE_JSON)
+                    .timeout(REGISTRATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .content(new StringContentProvider(body));
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                request = registration;
+            }
+
+            long start = System.nanoTime();
+            registration.send(new BufferingResponseListener() {
+                @Override
+                public void onComplete(Result result) {
+                    long duration = System.nanoTime() - start;
+                    for (PairingListener listener : listeners) {
+                        listener.registrationRequestCompleted(duration, result.getFailure());
+                    }
+                    handleResponse(result, getContentAsString());
+                }
+            });
+        }
+
+        private void handleResponse(Result result, @Nullable String content) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+            }
+
+            String progress;
+            if (result.isFailed()) {
+                logger.debug("Registration request to huesync-box {} failed: {}", host,
+                        result.getFailure().getMessage());
+                progress = "Waiting for the huesync-box to respond";
+            } else {
+                JsonObject response = parse(content);
+                JsonElement accessToken = response == null ? null : response.get("accessToken");
+                JsonElement code = response == null ? null : response.get("code");
+                if (accessToken != null && accessToken.isJsonPrimitive()) {
+                    complete(accessToken.getAsString());
+                    return;
+                } else if (code != null && code.isJsonPrimitive() && code.getAsInt() == STATUS_BUTTON_NOT_PRESSED) {
+                    progress = "Press the pairing button of the huesync-box for 3 seconds until the LED blinks green";
+                } else {
+                    logger.debug("Unhandled registration response of huesync-box {}: {}", host, content);
+                    progress = "Waiting for the huesync-box to accept the pairing";
+                }
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                fail("Pairing timed out, the pairing button of the huesync-box has not been pressed");
+                return;
+            }
+
+            // the listeners are only notified when the progress changes, so the status is not updated every request
+            boolean progressChanged;
+            synchronized (this) {
+                progressChanged = !progress.equals(lastProgress);
+                lastProgress = progress;
+            }
+            if (progressChanged) {
+                for (PairingListener listener : listeners) {
+                    listener.pairingProgress(progress);
+                }
+            }
+            synchronized (this) {
+                if (!finished) {
+                    request = null;
+                    retryJob = scheduler.schedule(this::sendRegistration, REGISTRATION_INTERVAL_SECONDS,
+                            TimeUnit.SECONDS);
+                }
+            }
+        }
+
+        synchronized @Nullable String getLastProgress() {
+            return lastProgress;
+        }
+
+        private @Nullable JsonObject parse(@Nullable String content) {
+            if (content == null) {
+                return null;
+            }
+            try {
+                JsonElement element = JsonParser.parseString(content);
+                return element.isJsonObject() ? element.getAsJsonObject() : null;
+            } catch (RuntimeException e) {
+                logger.debug("Invalid registration response of huesync-box {}: {}", host, e.getMessage());
+                return null;
+            }
+        }
+
+        private void complete(String apiAccessToken) {
+            if (!markFinished()) {
+                return;
+            }
+            logger.info("Pairing with huesync-box {} successfully finished", host);
+            for (PairingListener listener : listeners) {
+                listener.pairingCompleted(apiAccessToken);
+            }
+        }
+
+        private void fail(String message) {
+            if (!markFinished()) {
+                return;
+            }
+            logger.debug("Pairing with huesync-box {} failed: {}", host, message);
+            for (PairingListener listener : listeners) {
+                listener.pairingFailed(message);
+            }
+        }
+
+        private boolean markFinished() {
+            synchronized (this) {
+                if (finished) {
+                    return false;
+                }
+                finished = true;
+                request = null;
+            }
+            remove(this);
+            return true;
+        }
+
+        /**
+         * Stop the session without notifying the listeners
+         */
+        void finish() {
+            Request pending;
+            synchronized (this) {
+                finished = true;
+                pending = request;
+                request = null;
+                ScheduledFuture<?> job = retryJob;
+                if (job != null) {
+                    job.cancel(false);
+                    retryJob = null;
+                }
+            }
+            if (pending != null) {
+                pending.abort(new CancellationException("Pairing cancelled"));
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HueSyncPollingCoordinator} schedules the status polls of all huesync-boxes handled by the binding.
+ *
+ * The first poll of a box is delayed by a random offset and every following delay is jittered, so boxes do not
+ * poll in lockstep. Polls that are due are queued and at most a fixed number of them is in flight at any time.
+ * The time a poll waited in the queue is recorded per box.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncPollingCoordinator {
+
+    // Spread the first polls over at most this time, so channels don't stay undefined for a whole interval
+    private static final long MAX_INITIAL_SPREAD_MS = 10_000;
+    private static final double JITTER_FACTOR = 0.1;
+
+    /**
+     * A status poll of one box. The poll must call <code>onDone</code> exactly once when it has completed.
+     */
+    @FunctionalInterface
+    public interface PollTask {
+        void poll(Runnable onDone);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncPollingCoordinator.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final int maxConcurrentPolls;
+
+    private final Deque<Registration> duePolls = new ArrayDeque<>();
+    private int pollsInFlight;
+
+    public HueSyncPollingCoordinator(ScheduledExecutorService scheduler, int maxConcurrentPolls) {
+        this.scheduler = scheduler;
+        this.maxConcurrentPolls = maxConcurrentPolls;
+    }
+
+    /**
+     * Register the status poll of a box. Nothing is polled until the first poll is scheduled.
+     *
+     * @param name the name of the box used for logging
+     * @param task the poll to run
+     * @return the registration to schedule and cancel polls with
+     */
+    public Registration register(String name, PollTask task) {
+        return new Registration(name, task);
+    }
+
+    private void enqueue(Registration registration) {
+        synchronized (this) {
+            registration.dueTimeNanos = System.nanoTime();
+            duePolls.addLast(registration);
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (true) {
+            Registration next;
+            synchronized (this) {
+                if (pollsInFlight >= maxConcurrentPolls || duePolls.isEmpty()) {
+                    return;
+                }
+                next = duePolls.removeFirst();
+                pollsInFlight++;
+            }
+            next.run();
+        }
+    }
+
+    private synchronized void pollCompleted() {
+        pollsInFlight--;
+    }
+
+    /**
+     * The polling registration of one box
+     */
+    public class Registration {
+        private final String name;
+        private final PollTask task;
+
+        private @Nullable ScheduledFuture<?> job;
+        private long dueTimeNanos;
+        private volatile boolean cancelled;
+
+        private volatile long lastQueueLatencyMillis;
+        private volatile long maxQueueLatencyMillis;
+
+        private Registration(String name, PollTask task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        /**
+         * Schedule the first poll at a random offset within the given interval.
+         */
+        public void scheduleFirst(long intervalSeconds) {
+            long spread = Math.min(TimeUnit.SECONDS.toMillis(intervalSeconds), MAX_INITIAL_SPREAD_MS);
+            scheduleMillis(spread > 0 ? ThreadLocalRandom.current().nextLong(spread) : 0);
+        }
+
+        /**
+         * Schedule the next poll. Delays are jittered by up to 10 percent.
+         */
+        public void schedule(long delaySeconds) {
+            long delay = TimeUnit.SECONDS.toMillis(delaySeconds);
+            long jitter = (long) (delay * JITTER_FACTOR);
+            scheduleMillis(jitter > 0 ? delay - jitter + ThreadLocalRandom.current().nextLong(2 * jitter) : delay);
+        }
+
+        private synchronized void scheduleMillis(long delayMillis) {
+            if (cancelled) {
+                return;
+            }
+            ScheduledFuture<?> scheduledJob = job;
+            if (scheduledJob != null) {
+                scheduledJob.cancel(false);
+            }
+            job = scheduler.schedule(() -> enqueue(this), delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Cancel the scheduled poll. A poll already in flight is completed.
+         */
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                ScheduledFuture<?> scheduledJob = job;
+                if (scheduledJob != null) {
+                    scheduledJob.cancel(false);
+                    job = null;
+                }
+            }
+            synchronized (HueSyncPollingCoordinator.this) {
+                duePolls.remove(this);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return the time the last poll waited for a free slot in milliseconds
+         */
+        public long getLastQueueLatencyMillis() {
+            return lastQueueLatencyMillis;
+        }
+
+        /**
+         * @return the longest time a poll waited for a free slot in milliseconds
+         */
+        public long getMaxQueueLatencyMillis() {
+            return maxQueueLatencyMillis;
+        }
+
+        private void run() {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - dueTimeNanos);
+            lastQueueLatencyMillis = latency;
+            if (latency > maxQueueLatencyMillis) {
+                maxQueueLatencyMillis = latency;
+            }
+            AtomicBoolean done = new AtomicBoolean();
+            Runnable onDone = () -> {
+                // the slot is released exactly once, even if the poll failed after reporting its completion
+                if (done.compareAndSet(false, true)) {
+                    pollCompleted();
+                    dispatch();
+                }
+            };
+            if (cancelled) {
+                logger.trace("Skipping poll of {}, polling has been cancelled", name);
+                onDone.run();
+                return;
+            }
+            logger.trace("Polling {} after {}ms in queue", name, latency);
+
+            try {
+                task.poll(onDone);
+            } catch (RuntimeException e) {
+                logger.warn("Polling {} failed: {}", name, e.getMessage());
+                onDone.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.huesync.internal.config.HueSyncConfiguration;
+
+/**
+ * The {@link HueSyncPollingStrategy} calculates the delay until the next status poll.
+ *
+ * In fixed mode the configured polling interval is always used. In adaptive mode the box is polled with the
+ * minimal interval after a command was sent or a change was detected. While nothing changes the interval is
+ * doubled up to the polling interval, and up to the maximal interval if the box is in standby.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncPollingStrategy {
+
+    public static final String MODE_FIXED = "fixed";
+    public static final String MODE_ADAPTIVE = "adaptive";
+
+    private final boolean adaptive;
+    private final long minInterval;
+    private final long activeInterval;
+    private final long maxInterval;
+
+    private long currentInterval;
+    private volatile boolean commandSent;
+
+    public HueSyncPollingStrategy(HueSyncConfiguration config) {
+        this.adaptive = MODE_ADAPTIVE.equals(config.pollingMode);
+        this.minInterval = config.minPollingInterval;
+        this.maxInterval = Math.max(minInterval, config.maxPollingInterval);
+        this.activeInterval = Math.min(Math.max(minInterval, config.httpPollingInterval), maxInterval);
+        this.currentInterval = adaptive ? minInterval : config.httpPollingInterval;
+    }
+
+    /**
+     * Notify the strategy that a command was sent, so the box is polled fast to pick up its effects.
+     *
+     * @return the delay in seconds until the next poll should reconcile the commanded values, or a negative
+     *         value if the polling schedule is kept
+     */
+    public long commandSent() {
+        commandSent = true;
+        return adaptive ? minInterval : -1;
+    }
+
+    /**
+     * Calculate the delay until the next poll.
+     *
+     * @param changed true if the last poll detected a change of the box state
+     * @param active true if the box is powered on
+     * @return the delay in seconds
+     */
+    public synchronized long nextDelaySeconds(boolean changed, boolean active) {
+        if (!adaptive) {
+            return currentInterval;
+        }
+
+        if (changed || commandSent) {
+            commandSent = false;
+            currentInterval = minInterval;
+        } else {
+            long limit = active ? activeInterval : maxInterval;
+            currentInterval = Math.min(currentInterval * 2, limit);
+        }
+        return currentInterval;
+    }
+}
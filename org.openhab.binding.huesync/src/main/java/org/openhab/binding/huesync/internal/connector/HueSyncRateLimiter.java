@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link HueSyncRateLimiter} is a token bucket limiting the requests sent to one huesync-box. The bucket
+ * holds up to the burst size of tokens and is refilled with the configured rate, every request takes one token.
+ *
+ * Commands are never dropped: if no token is available, they wait in order until the bucket has been refilled.
+ * Polls are shed instead of being delayed: a poll is only sent if no command is waiting and enough tokens are
+ * left, keeping one token in reserve for a command arriving next. A poll with more requests than the bucket can
+ * hold waits for a full bucket and overdraws it.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ScheduledExecutorService scheduler;
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private final Deque<WaitingCommand> waitingCommands = new ArrayDeque<>();
+    private final AtomicLong shedPolls = new AtomicLong();
+    private final AtomicLong delayedCommands = new AtomicLong();
+    private double tokens;
+    private long lastRefillNanos;
+    private @Nullable ScheduledFuture<?> drainJob;
+    private boolean disposed;
+
+    /**
+     * @param requestsPerSecond the rate the bucket is refilled with
+     * @param burst the maximal number of tokens in the bucket
+     */
+    public HueSyncRateLimiter(ScheduledExecutorService scheduler, double requestsPerSecond, int burst) {
+        this.scheduler = scheduler;
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = Math.max(requestsPerSecond, 0.001) / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Take the tokens of a poll, unless commands are waiting or too few tokens are left. A shed poll is counted.
+     *
+     * @param permits the number of requests of the poll
+     * @return true if the poll may be sent
+     */
+    public synchronized boolean tryAcquirePoll(int permits) {
+        refill();
+        if (waitingCommands.isEmpty() && tokens >= required(permits)) {
+            tokens -= permits;
+            return true;
+        }
+        shedPolls.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return the time in milliseconds until a poll with the given number of requests could be sent
+     */
+    public synchronized long getPollDelayMillis(int permits) {
+        refill();
+        double missing = required(permits) - tokens;
+        // waiting commands are served first
+        missing += waitingCommands.size();
+        return missing <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis((long) Math.ceil(missing / tokensPerNano));
+    }
+
+    // Keep a token for the next command, unless the bucket is too small to hold it besides the poll. A bucket
+    // smaller than the poll can never hold all of its tokens, a full bucket has to do.
+    private double required(int permits) {
+        return capacity > permits ? permits + 1 : capacity;
+    }
+
+    /**
+     * Take a token for a request which is needed to set up the connection. The request is neither shed nor
+     * delayed, the bucket may be overdrawn.
+     */
+    public synchronized void consume() {
+        refill();
+        tokens -= 1;
+    }
+
+    /**
+     * Send a command as soon as a token is available. Commands are sent in the order they were acquired.
+     *
+     * @param send sends the command
+     * @param rejected called instead of <code>send</code> if the limiter is disposed while the command waits
+     */
+    public void acquireCommand(Runnable send, Runnable rejected) {
+        boolean sendNow = false;
+        synchronized (this) {
+            if (!disposed) {
+                refill();
+                if (!waitingCommands.isEmpty() || tokens < 1) {
+                    delayedCommands.incrementAndGet();
+                    waitingCommands.add(new WaitingCommand(send, rejected));
+                    scheduleDrain();
+                    return;
+                }
+                tokens -= 1;
+                sendNow = true;
+            }
+        }
+        if (sendNow) {
+            send.run();
+        } else {
+            rejected.run();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainJob != null || waitingCommands.isEmpty()) {
+            return;
+        }
+        long delayNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        drainJob = scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            drainJob = null;
+            if (disposed) {
+                return;
+            }
+            refill();
+            while (!waitingCommands.isEmpty() && tokens >= 1) {
+                tokens -= 1;
+                ready.add(waitingCommands.poll().send);
+            }
+            scheduleDrain();
+        }
+        for (Runnable send : ready) {
+            send.run();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * @return the number of polls which have been shed
+     */
+    public long getShedPolls() {
+        return shedPolls.get();
+    }
+
+    /**
+     * @return the number of commands which had to wait for a token
+     */
+    public long getDelayedCommands() {
+        return delayedCommands.get();
+    }
+
+    /**
+     * Reject the waiting commands, e.g. because the connection they were acquired for has been closed. The
+     * tokens are kept, so the rate is enforced across reconnects.
+     */
+    public void rejectWaitingCommands() {
+        reject(false);
+    }
+
+    /**
+     * Stop sending, the waiting commands are rejected
+     */
+    public void dispose() {
+        reject(true);
+    }
+
+    private void reject(boolean dispose) {
+        List<WaitingCommand> rejected;
+        synchronized (this) {
+            disposed |= dispose;
+            ScheduledFuture<?> job = drainJob;
+            if (job != null) {
+                job.cancel(false);
+                drainJob = null;
+            }
+            rejected = new ArrayList<>(waitingCommands);
+            waitingCommands.clear();
+        }
+        for (WaitingCommand command : rejected) {
+            command.rejected.run();
+        }
+    }
+
+    private static class WaitingCommand {
+        private final Runnable send;
+        private final Runnable rejected;
+
+        WaitingCommand(Runnable send, Runnable rejected) {
+            this.send = send;
+            this.rejected = rejected;
+        }
+    }
+}
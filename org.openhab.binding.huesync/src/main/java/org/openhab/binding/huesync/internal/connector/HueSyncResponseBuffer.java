@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link HueSyncResponseBuffer} collects the content of a response in a byte array which is reused for
+ * every response, and calculates a fingerprint of the content so unchanged responses can be detected without
+ * parsing them.
+ *
+ * The buffer is not thread-safe, it must only be used for one request at a time.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncResponseBuffer {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private static final int MAX_CAPACITY = 512 * 1024;
+
+    private final CRC32C checksum = new CRC32C();
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    /**
+     * Discard the content of the previous response
+     */
+    public void reset() {
+        length = 0;
+        checksum.reset();
+    }
+
+    /**
+     * Append received content to the buffer.
+     *
+     * @throws IOException if the content exceeds the maximal size of a response
+     */
+    public void append(ByteBuffer content) throws IOException {
+        int count = content.remaining();
+        if (length + count > data.length) {
+            if (length + count > MAX_CAPACITY) {
+                throw new IOException("Response exceeds " + MAX_CAPACITY + " bytes");
+            }
+            data = Arrays.copyOf(data, Math.min(MAX_CAPACITY, Math.max(data.length * 2, length + count)));
+        }
+        content.get(data, length, count);
+        checksum.update(data, length, count);
+        length += count;
+    }
+
+    /**
+     * @return a fingerprint of the buffered content, combining its length and checksum
+     */
+    public long fingerprint() {
+        return ((long) length << 32) | checksum.getValue();
+    }
+
+    /**
+     * @return a stream reading the buffered content
+     */
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(data, 0, length);
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncDeviceInfo;
+import org.openhab.binding.huesync.internal.HueSyncEntertainmentAreas;
+import org.openhab.binding.huesync.internal.HueSyncState;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The {@link HueSyncStateDecoder} reads the documents of the huesync-box api with a streaming {@link JsonReader}
+ * and applies the <code>execution</code> and <code>hdmi</code> sections directly to the {@link HueSyncState}.
+ * The <code>device</code> and <code>hue</code> sections are decoded into immutable objects.
+ * Members which are not needed are skipped without building a json tree.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncStateDecoder {
+
+    private static final int MAX_MODE_SETTINGS = 4;
+
+    // Intensities of the mode specific sub-objects of the execution section, e.g. "video":{"intensity":"high"}.
+    // The active mode may be read after its sub-object, so the values are kept until the section is complete.
+    private final @Nullable String[] modeNames = new String[MAX_MODE_SETTINGS];
+    private final @Nullable String[] modeIntensities = new String[MAX_MODE_SETTINGS];
+    private int modeSettingsCount;
+
+    /**
+     * Decodes the document of the <code>/device</code> endpoint.
+     *
+     * @param reader the reader positioned at the beginning of the document
+     * @return the device information, values missing in the document are empty
+     * @throws IOException if the document could not be read or is malformed
+     */
+    public HueSyncDeviceInfo decodeDeviceInfo(JsonReader reader) throws IOException {
+        String name = "";
+        String deviceType = "";
+        String uniqueId = "";
+        String firmwareVersion = "";
+        int apiLevel = 0;
+        int maxIrCodes = 0;
+        int maxPresets = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String member = reader.nextName();
+            if ("capabilities".equals(member) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "maxIrCodes":
+                            maxIrCodes = reader.nextInt();
+                            break;
+                        case "maxPresets":
+                            maxPresets = reader.nextInt();
+                            break;
+                        default:
+                            reader.skipValue();
+                            break;
+                    }
+                }
+                reader.endObject();
+                continue;
+            }
+            if (reader.peek() == JsonToken.BEGIN_OBJECT || reader.peek() == JsonToken.BEGIN_ARRAY
+                    || reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (member) {
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "deviceType":
+                    deviceType = reader.nextString();
+                    break;
+                case "uniqueId":
+                    uniqueId = reader.nextString();
+                    break;
+                case "firmwareVersion":
+                    firmwareVersion = reader.nextString();
+                    break;
+                case "apiLevel":
+                    apiLevel = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return new HueSyncDeviceInfo(name, deviceType, uniqueId, firmwareVersion, apiLevel, maxIrCodes, maxPresets,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Decodes the document of the <code>/execution</code> endpoint and updates the given state.
+     *
+     * @param reader the reader positioned at the beginning of the document
+     * @param state the state to update
+     * @throws IOException if the document could not be read or is malformed
+     */
+    public void decodeExecution(JsonReader reader, HueSyncState state) throws IOException {
+        @Nullable
+        String mode = null;
+        modeSettingsCount = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "mode":
+                    mode = reader.nextString();
+                    state.setString(HueSyncChannel.MODE, mode);
+                    break;
+                case "hdmiActive":
+                    state.setSwitch(HueSyncChannel.POWER, reader.nextBoolean());
+                    break;
+                case "hdmiSource":
+                    state.setString(HueSyncChannel.INPUT, reader.nextString());
+                    break;
+                case "syncActive":
+                    state.setSwitch(HueSyncChannel.SYNC_STATUS, reader.nextBoolean());
+                    break;
+                case "brightness":
+                    state.setPercent(HueSyncChannel.BRIGHTNESS, reader.nextInt() / 2);
+                    break;
+                case "hueTarget":
+                    if (reader.peek() == JsonToken.STRING) {
+                        state.setString(HueSyncChannel.ENTERTAINMENT_AREA,
+                                HueSyncExecutionCommand.toEntertainmentAreaId(reader.nextString()));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        decodeModeSettings(reader, name);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (mode != null) {
+            for (int i = 0; i < modeSettingsCount; i++) {
+                String intensity = modeIntensities[i];
+                if (mode.equals(modeNames[i]) && intensity != null) {
+                    state.setString(HueSyncChannel.INTENSITY, intensity);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void decodeModeSettings(JsonReader reader, String modeName) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("intensity".equals(reader.nextName()) && modeSettingsCount < MAX_MODE_SETTINGS) {
+                modeNames[modeSettingsCount] = modeName;
+                modeIntensities[modeSettingsCount] = reader.nextString();
+                modeSettingsCount++;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Decodes the document of the <code>/hue</code> endpoint.
+     *
+     * @param reader the reader positioned at the beginning of the document
+     * @return the entertainment areas of the hue bridge, values missing in the document are empty
+     * @throws IOException if the document could not be read or is malformed
+     */
+    public HueSyncEntertainmentAreas decodeEntertainmentAreas(JsonReader reader) throws IOException {
+        String bridgeUniqueId = "";
+        Map<String, String> names = new LinkedHashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String member = reader.nextName();
+            if ("bridgeUniqueId".equals(member) && reader.peek() == JsonToken.STRING) {
+                bridgeUniqueId = reader.nextString();
+            } else if ("groups".equals(member) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String id = reader.nextName();
+                    names.put(id, decodeGroupName(reader, id));
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new HueSyncEntertainmentAreas(bridgeUniqueId, names, System.currentTimeMillis());
+    }
+
+    /**
+     * Reads one group object of the hue section.
+     *
+     * @return the name of the group, or its id if the group has no name
+     */
+    private String decodeGroupName(JsonReader reader, String id) throws IOException {
+        String name = id;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("name".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                name = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name;
+    }
+
+    /**
+     * Decodes the document of the <code>/hdmi</code> endpoint and updates the given state.
+     *
+     * @param reader the reader positioned at the beginning of the document
+     * @param state the state to update
+     * @throws IOException if the document could not be read or is malformed
+     */
+    public void decodeHdmi(JsonReader reader, HueSyncState state) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "input1":
+                    decodeHdmiPort(reader, state, 1);
+                    break;
+                case "input2":
+                    decodeHdmiPort(reader, state, 2);
+                    break;
+                case "input3":
+                    decodeHdmiPort(reader, state, 3);
+                    break;
+                case "input4":
+                    decodeHdmiPort(reader, state, 4);
+                    break;
+                case "output":
+                    decodeHdmiPort(reader, state, 0);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Reads one hdmi port object.
+     *
+     * @param port 1..4 for the inputs, 0 for the output
+     */
+    private void decodeHdmiPort(JsonReader reader, HueSyncState state, int port) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    state.setString(HueSyncChannel.PORT_NAME[port], reader.nextString());
+                    break;
+                case "type":
+                    state.setString(HueSyncChannel.PORT_TYPE[port], reader.nextString());
+                    break;
+                case "status":
+                    state.setString(HueSyncChannel.PORT_STATUS[port], reader.nextString());
+                    break;
+                case "lastSyncMode":
+                    state.setString(HueSyncChannel.PORT_LASTMODE[port], reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+}
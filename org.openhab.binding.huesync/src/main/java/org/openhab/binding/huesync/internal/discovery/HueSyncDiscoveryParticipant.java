@@ -14,10 +14,15 @@ package org.openhab.binding.huesync.internal.discovery;
 
 import static org.openhab.binding.huesync.internal.HueSyncBindingConstants.*;
 
+import java.net.Inet4Address;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,9 +34,12 @@ import org.openhab.core.config.discovery.DiscoveryResult;
 import org.openhab.core.config.discovery.DiscoveryResultBuilder;
 import org.openhab.core.config.discovery.mdns.MDNSDiscoveryParticipant;
 import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingRegistry;
 import org.openhab.core.thing.ThingTypeUID;
 import org.openhab.core.thing.ThingUID;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +47,11 @@ import org.slf4j.LoggerFactory;
  * The {@link HueSyncDiscoveryParticipant} is responsible for discovering
  * the remote huesync.boxes using mDNS discovery service.
  *
+ * Announcements are cached per serial number for {@link #CACHE_TTL_MILLIS}, so repeated announcements of a box
+ * return the cached result. The IPv4 addresses of the announcement are recorded and become the host of new
+ * things. If the address of a box changes and its existing thing is configured by address, the host in the
+ * configuration of the thing is updated, so its handler reconnects to the new address without a DNS lookup.
+ *
  * @author Marco Kawon - Initial contribution
  *
  */
@@ -47,6 +60,7 @@ import org.slf4j.LoggerFactory;
 public class HueSyncDiscoveryParticipant implements MDNSDiscoveryParticipant {
 
     private static final String SERVICE_TYPE = "_huesync._tcp.local.";
+    private static final long CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
 
     private Logger logger = LoggerFactory.getLogger(HueSyncDiscoveryParticipant.class);
 
@@ -55,6 +69,46 @@ public class HueSyncDiscoveryParticipant implements MDNSDiscoveryParticipant {
      * Input is like "HueSyncBox-C4299605AAB2._huesync._tcp.local."
      */
     private static final Pattern PHILIPS_SYNCBOX_PATTERN = Pattern.compile("^(.*)-(.*)\\._huesync\\._tcp\\.local\\.$");
+    private static final Pattern IPV4_ADDRESS = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    /**
+     * The parts of a matched service name
+     */
+    private static final class ServiceName {
+        final String hostname;
+        final String serial;
+        final ThingUID thingUID;
+
+        ServiceName(String hostname, String serial, ThingUID thingUID) {
+            this.hostname = hostname;
+            this.serial = serial;
+            this.thingUID = thingUID;
+        }
+    }
+
+    /**
+     * A discovery result with the addresses it was created for
+     */
+    private static final class CachedResult {
+        final DiscoveryResult result;
+        final String addresses;
+        final long expiresAt;
+
+        CachedResult(DiscoveryResult result, String addresses, long expiresAt) {
+            this.result = result;
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ThingRegistry thingRegistry;
+    private final Map<String, ServiceName> serviceNames = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+
+    @Activate
+    public HueSyncDiscoveryParticipant(@Reference ThingRegistry thingRegistry) {
+        this.thingRegistry = thingRegistry;
+    }
 
     @Override
     public Set<ThingTypeUID> getSupportedThingTypeUIDs() {
@@ -71,41 +125,109 @@ public class HueSyncDiscoveryParticipant implements MDNSDiscoveryParticipant {
         String qualifiedName = serviceInfo.getQualifiedName();
         logger.debug("HueSync Device found: {}", qualifiedName);
 
-        ThingUID thingUID = getThingUID(serviceInfo);
-        if (thingUID != null) {
-            Matcher matcher = PHILIPS_SYNCBOX_PATTERN.matcher(qualifiedName);
-            matcher.matches(); // we already know it matches, it was matched in getThingUID
+        ServiceName name = parseServiceName(qualifiedName);
+        if (name == null) {
+            logger.debug("This discovered device is not supported by the HueSync binding, ignoring...");
+            return null;
+        }
 
-            String vendor = "Philips";
-            String model = "Hue Play HDMI Sync Box";
-            String friendlyName = "Philips Hue HDMI Sync Box";
-            String hostname = (matcher.group(1) + "-" + matcher.group(2)).toLowerCase();
-            String serial = matcher.group(2);
+        String addresses = getAddresses(serviceInfo);
+        long now = System.currentTimeMillis();
+        CachedResult cached = results.get(name.serial);
+        if (cached != null && cached.expiresAt > now && cached.addresses.equals(addresses)) {
+            logger.trace("Using cached discovery result for {}", name.serial);
+            return cached.result;
+        }
 
-            Map<String, Object> properties = new HashMap<>(2);
-            properties.put(PARAMETER_HOST, hostname);
-            properties.put(Thing.PROPERTY_SERIAL_NUMBER, serial);
-            properties.put(Thing.PROPERTY_VENDOR, vendor);
-            properties.put(Thing.PROPERTY_MODEL_ID, model);
+        String vendor = "Philips";
+        String model = "Hue Play HDMI Sync Box";
+        String friendlyName = "Philips Hue HDMI Sync Box";
+        // connect by address if the announcement contains one, so no DNS lookup is needed
+        String host = addresses.isEmpty() ? name.hostname : addresses.split(",")[0];
+
+        Map<String, Object> properties = new HashMap<>(6);
+        properties.put(PARAMETER_HOST, host);
+        properties.put(PROPERTY_HOSTNAME, name.hostname);
+        if (!addresses.isEmpty()) {
+            properties.put(PROPERTY_IP_ADDRESSES, addresses);
+        }
+        properties.put(Thing.PROPERTY_SERIAL_NUMBER, name.serial);
+        properties.put(Thing.PROPERTY_VENDOR, vendor);
+        properties.put(Thing.PROPERTY_MODEL_ID, model);
 
-            logger.debug("thing properties: {}", properties);
+        logger.debug("thing properties: {}", properties);
 
-            return DiscoveryResultBuilder.create(thingUID).withProperties(properties)
-                    .withRepresentationProperty(Thing.PROPERTY_SERIAL_NUMBER).withLabel(friendlyName).build();
-        } else {
-            logger.debug("This discovered device is not supported by the HueSync binding, ignoring...");
-        }
+        DiscoveryResult result = DiscoveryResultBuilder.create(name.thingUID).withProperties(properties)
+                .withRepresentationProperty(Thing.PROPERTY_SERIAL_NUMBER).withLabel(friendlyName).build();
+        results.put(name.serial, new CachedResult(result, addresses, now + CACHE_TTL_MILLIS));
 
-        return null;
+        if (!addresses.isEmpty() && (cached == null || !cached.addresses.equals(addresses))) {
+            updateHost(name.thingUID, Arrays.asList(addresses.split(",")));
+        }
+        return result;
     }
 
     @Override
     public @Nullable ThingUID getThingUID(ServiceInfo service) {
-        Matcher matcher = PHILIPS_SYNCBOX_PATTERN.matcher(service.getQualifiedName());
-        if (matcher.matches()) {
-            String serial = matcher.group(2).toLowerCase();
-            return new ThingUID(THING_TYPE_SYNCBOX, serial);
+        ServiceName name = parseServiceName(service.getQualifiedName());
+        return name == null ? null : name.thingUID;
+    }
+
+    private @Nullable ServiceName parseServiceName(String qualifiedName) {
+        ServiceName name = serviceNames.get(qualifiedName);
+        if (name == null) {
+            Matcher matcher = PHILIPS_SYNCBOX_PATTERN.matcher(qualifiedName);
+            if (!matcher.matches()) {
+                return null;
+            }
+            String hostname = (matcher.group(1) + "-" + matcher.group(2)).toLowerCase();
+            String serial = matcher.group(2);
+            name = new ServiceName(hostname, serial, new ThingUID(THING_TYPE_SYNCBOX, serial.toLowerCase()));
+            serviceNames.put(qualifiedName, name);
+        }
+        return name;
+    }
+
+    /**
+     * @return the sorted IPv4 addresses of the service, separated by comma, or an empty string if there are none
+     */
+    private static String getAddresses(ServiceInfo serviceInfo) {
+        Inet4Address[] inet4Addresses = serviceInfo.getInet4Addresses();
+        if (inet4Addresses == null || inet4Addresses.length == 0) {
+            return "";
+        }
+        String[] addresses = new String[inet4Addresses.length];
+        for (int i = 0; i < inet4Addresses.length; i++) {
+            addresses[i] = inet4Addresses[i].getHostAddress();
+        }
+        Arrays.sort(addresses);
+        return String.join(",", addresses);
+    }
+
+    /**
+     * Update the host of the existing thing of a box, if it is configured by an address which is not announced any
+     * more. A configured host name is kept, it resolves to the new address by itself.
+     *
+     * @param addresses the announced IPv4 addresses of the box, the first one becomes the new host
+     */
+    private void updateHost(ThingUID thingUID, List<String> addresses) {
+        Thing thing = thingRegistry.get(thingUID);
+        if (thing == null) {
+            return;
+        }
+        Object configuredHost = thing.getConfiguration().get(PARAMETER_HOST);
+        if (!(configuredHost instanceof String) || !IPV4_ADDRESS.matcher((String) configuredHost).matches()
+                || addresses.contains(configuredHost)) {
+            return;
+        }
+
+        String host = addresses.get(0);
+        logger.debug("Address of huesync-box {} changed from {} to {}", thingUID, configuredHost, host);
+        try {
+            // the handler reconnects in handleConfigurationUpdate
+            thingRegistry.updateConfiguration(thingUID, Map.of(PARAMETER_HOST, host));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.debug("Failed to update the host of {}: {}", thingUID, e.getMessage());
         }
-        return null;
     }
 }
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.handler;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.huesync.internal.connector.HueSyncCommandQueue.CommandCallback;
+
+/**
+ * The {@link HueSyncGroupCommand} sends one command to all boxes of a group. The command is dispatched to at
+ * most the configured number of boxes at the same time, the next box is started as soon as one has completed.
+ * Nothing blocks while waiting, the completion of each box is reported by a callback.
+ *
+ * Boxes which have not answered when the timeout has passed are counted as failed.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncGroupCommand {
+
+    /**
+     * Sends the command to one box
+     */
+    @FunctionalInterface
+    public interface Dispatcher {
+        /**
+         * @param member the box
+         * @param callback to be notified once when the box has accepted or rejected the command
+         */
+        void dispatch(HueSyncHandler member, CommandCallback callback);
+    }
+
+    /**
+     * Is notified once when all boxes have completed or the timeout has passed
+     */
+    @FunctionalInterface
+    public interface ResultListener {
+        /**
+         * @param succeeded the number of boxes which accepted the command
+         * @param failed the number of boxes which rejected the command, were not available or timed out
+         * @param durationNanos the time from the start until the last box completed
+         */
+        void groupCommandCompleted(int succeeded, int failed, long durationNanos);
+    }
+
+    private final List<HueSyncHandler> members;
+    private final int total;
+    private final int maxConcurrency;
+    private final Dispatcher dispatcher;
+    private final ResultListener listener;
+
+    private long start;
+    private int next;
+    private int running;
+    private int succeeded;
+    private int failed;
+    // the result is reported exactly once, by whoever completes the command first
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private @Nullable ScheduledFuture<?> timeoutJob;
+
+    /**
+     * @param members the boxes to send the command to
+     * @param unavailable the number of boxes of the group which are not available, they are counted as failed
+     */
+    public HueSyncGroupCommand(List<HueSyncHandler> members, int unavailable, int maxConcurrency,
+            Dispatcher dispatcher, ResultListener listener) {
+        this.members = List.copyOf(members);
+        this.total = members.size() + unavailable;
+        this.failed = unavailable;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.dispatcher = dispatcher;
+        this.listener = listener;
+    }
+
+    /**
+     * Start dispatching the command
+     *
+     * @param timeoutMillis the time after which boxes which have not completed are counted as failed
+     */
+    public void start(ScheduledExecutorService scheduler, long timeoutMillis) {
+        synchronized (this) {
+            start = System.nanoTime();
+            if (!members.isEmpty()) {
+                timeoutJob = scheduler.schedule(this::timedOut, timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        dispatchNext();
+        completeIfDone();
+    }
+
+    private void dispatchNext() {
+        while (true) {
+            HueSyncHandler member;
+            synchronized (this) {
+                if (completed.get() || running >= maxConcurrency || next >= members.size()) {
+                    return;
+                }
+                member = members.get(next++);
+                running++;
+            }
+            AtomicBoolean reported = new AtomicBoolean();
+            dispatcher.dispatch(member, success -> {
+                if (reported.compareAndSet(false, true)) {
+                    memberCompleted(success);
+                }
+            });
+        }
+    }
+
+    private void memberCompleted(boolean success) {
+        synchronized (this) {
+            if (completed.get()) {
+                return;
+            }
+            running--;
+            if (success) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+        dispatchNext();
+        completeIfDone();
+    }
+
+    private void timedOut() {
+        synchronized (this) {
+            if (completed.get()) {
+                return;
+            }
+            // the boxes which are still running or have not been started are counted as failed
+            failed = total - succeeded;
+        }
+        completeIfDone();
+    }
+
+    private void completeIfDone() {
+        int succeededCount;
+        int failedCount;
+        synchronized (this) {
+            if (succeeded + failed < total || !completed.compareAndSet(false, true)) {
+                return;
+            }
+            ScheduledFuture<?> job = timeoutJob;
+            if (job != null) {
+                job.cancel(false);
+                timeoutJob = null;
+            }
+            succeededCount = succeeded;
+            failedCount = failed;
+        }
+        listener.groupCommandCompleted(succeededCount, failedCount, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.handler;
+
+import static org.openhab.binding.huesync.internal.HueSyncBindingConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.huesync.internal.config.HueSyncGroupConfiguration;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.unit.MetricPrefix;
+import org.openhab.core.library.unit.Units;
+import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingRegistry;
+import org.openhab.core.thing.ThingStatus;
+import org.openhab.core.thing.ThingStatusDetail;
+import org.openhab.core.thing.ThingUID;
+import org.openhab.core.thing.binding.BaseThingHandler;
+import org.openhab.core.thing.binding.ThingHandler;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.RefreshType;
+import org.openhab.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HueSyncGroupHandler} controls several huesync-boxes together. A command sent to the group is
+ * dispatched to all its boxes in parallel, with at most the configured number of boxes at the same time. The
+ * number of boxes which accepted or rejected the command and the time until the last box completed are reported
+ * on the result channels of the group.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncGroupHandler extends BaseThingHandler {
+
+    private static final long COMMAND_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final Set<String> COMMAND_CHANNELS = Set.of(CHANNEL_POWER, CHANNEL_MODE, CHANNEL_INTENSITY,
+            CHANNEL_BRIGHTNESS, CHANNEL_INPUT, CHANNEL_SYNCSTATUS);
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncGroupHandler.class);
+
+    private final ThingRegistry thingRegistry;
+    private HueSyncGroupConfiguration config = new HueSyncGroupConfiguration();
+    private List<ThingUID> boxUIDs = List.of();
+
+    public HueSyncGroupHandler(Thing thing, ThingRegistry thingRegistry) {
+        super(thing);
+        this.thingRegistry = thingRegistry;
+    }
+
+    @Override
+    public void initialize() {
+        config = getConfigAs(HueSyncGroupConfiguration.class);
+        if (config.boxes.isEmpty()) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The group must contain at least one huesync-box!");
+            return;
+        }
+        if (config.maxConcurrency < 1) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The number of boxes commanded at the same time must be at least 1!");
+            return;
+        }
+        List<ThingUID> uids = new ArrayList<>(config.boxes.size());
+        for (String box : config.boxes) {
+            try {
+                uids.add(new ThingUID(box));
+            } catch (IllegalArgumentException e) {
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                        String.format("'%s' is not a valid thing UID of a huesync-box!", box));
+                return;
+            }
+        }
+        boxUIDs = List.copyOf(uids);
+        updateStatus(ThingStatus.ONLINE);
+    }
+
+    @Override
+    public void handleCommand(ChannelUID channelUID, Command command) {
+        if (command instanceof RefreshType) {
+            // The group has no state of its own, the boxes are refreshed by their own polling
+            return;
+        }
+        String channelID = channelUID.getId();
+        if (!COMMAND_CHANNELS.contains(channelID)) {
+            logger.warn("Unsupported command {} for channel {}", command, channelID);
+            return;
+        }
+
+        List<HueSyncHandler> members = new ArrayList<>();
+        int unavailable = 0;
+        for (ThingUID box : boxUIDs) {
+            Thing thing = thingRegistry.get(box);
+            ThingHandler handler = thing == null ? null : thing.getHandler();
+            if (handler instanceof HueSyncHandler) {
+                members.add((HueSyncHandler) handler);
+            } else {
+                logger.debug("huesync-box {} of group {} is not available", box, getThing().getUID());
+                unavailable++;
+            }
+        }
+
+        if (command instanceof State) {
+            updateState(channelUID, (State) command);
+        }
+        logger.debug("Sending command {} for channel {} to {} boxes", command, channelID, members.size());
+        new HueSyncGroupCommand(members, unavailable, config.maxConcurrency,
+                (member, callback) -> member.handleGroupCommand(channelID, command, callback),
+                this::groupCommandCompleted).start(scheduler, COMMAND_TIMEOUT_MS);
+    }
+
+    private void groupCommandCompleted(int succeeded, int failed, long durationNanos) {
+        logger.debug("Group command completed in {}ms, {} boxes succeeded, {} failed",
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), succeeded, failed);
+        updateState(CHANNEL_COMMAND_SUCCEEDED, new DecimalType(succeeded));
+        updateState(CHANNEL_COMMAND_FAILED, new DecimalType(failed));
+        updateState(CHANNEL_COMMAND_LATENCY,
+                new QuantityType<>(TimeUnit.NANOSECONDS.toMillis(durationNanos), MetricPrefix.MILLI(Units.SECOND)));
+    }
+}
@@ -14,17 +14,48 @@ package org.openhab.binding.huesync.internal.handler;
 
 import static org.openhab.binding.huesync.internal.HueSyncBindingConstants.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import javax.management.ObjectName;
+
 import org.eclipse.jetty.client.HttpClient;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncDeviceInfo;
+import org.openhab.binding.huesync.internal.HueSyncEntertainmentAreas;
 import org.openhab.binding.huesync.internal.HueSyncState;
+import org.openhab.binding.huesync.internal.HueSyncStateCache;
 import org.openhab.binding.huesync.internal.HueSyncStateChangedListener;
+import org.openhab.binding.huesync.internal.HueSyncStateDescriptionProvider;
+import org.openhab.binding.huesync.internal.HueSyncStateSnapshot;
 import org.openhab.binding.huesync.internal.UnsupportedCommandTypeException;
 import org.openhab.binding.huesync.internal.config.HueSyncConfiguration;
 import org.openhab.binding.huesync.internal.connector.HueSyncApiConnector;
+import org.openhab.binding.huesync.internal.connector.HueSyncCircuitBreaker;
+import org.openhab.binding.huesync.internal.connector.HueSyncRateLimiter;
+import org.openhab.binding.huesync.internal.connector.HueSyncCommandQueue.CommandCallback;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Input;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Intensity;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Mode;
+import org.openhab.binding.huesync.internal.connector.HueSyncPairingService;
+import org.openhab.binding.huesync.internal.connector.HueSyncPollingCoordinator;
+import org.openhab.binding.huesync.internal.connector.HueSyncPollingStrategy;
+import org.openhab.binding.huesync.internal.metrics.HueSyncLatencyHistogram;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics.RequestType;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetricsJmxExporter;
 import org.openhab.core.config.core.Configuration;
+import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.MetricPrefix;
+import org.openhab.core.library.unit.Units;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingStatus;
@@ -33,6 +64,7 @@ import org.openhab.core.thing.binding.BaseThingHandler;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.RefreshType;
 import org.openhab.core.types.State;
+import org.openhab.core.types.StateOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,23 +76,42 @@ import org.slf4j.LoggerFactory;
  */
 public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChangedListener {
 
-    private static final int RECONNECT_TIME_SECONDS = 30;
+    private static final int STATISTICS_INTERVAL_SECONDS = 60;
 
     private HttpClient httpClient;
-    private HueSyncApiConnector connector;
+    private HueSyncPollingCoordinator pollingCoordinator;
+    private HueSyncPairingService pairingService;
+    private HueSyncStateDescriptionProvider stateDescriptionProvider;
+    private volatile HueSyncApiConnector connector;
     private HueSyncConfiguration config;
     private HueSyncState hueSyncState;
+    private HueSyncCircuitBreaker circuitBreaker;
+    private HueSyncRateLimiter rateLimiter;
+    private HueSyncStateCache stateCache;
+    private volatile HueSyncDeviceInfo deviceInfo;
+    private volatile HueSyncEntertainmentAreas entertainmentAreas;
+    private HueSyncMetrics metrics = new HueSyncMetrics();
+    private final HueSyncMetricsJmxExporter metricsExporter = new HueSyncMetricsJmxExporter();
     private ScheduledFuture<?> retryJob;
+    private ScheduledFuture<?> statisticsJob;
+    // Guards setting up and tearing down the connection, which is triggered from several threads
+    private final Object connectionLock = new Object();
+    private volatile boolean disposed;
     private final Logger logger = LoggerFactory.getLogger(HueSyncHandler.class);
 
-    public HueSyncHandler(Thing thing, HttpClient httpClient) {
+    public HueSyncHandler(Thing thing, HttpClient httpClient, HueSyncPollingCoordinator pollingCoordinator,
+            HueSyncPairingService pairingService, HueSyncStateDescriptionProvider stateDescriptionProvider) {
         super(thing);
+        this.pairingService = pairingService;
+        this.stateDescriptionProvider = stateDescriptionProvider;
         this.httpClient = httpClient;
+        this.pollingCoordinator = pollingCoordinator;
     }
 
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
-        if (connector == null) {
+        HueSyncApiConnector currentConnector = connector;
+        if (currentConnector == null) {
             return;
         }
 
@@ -71,41 +122,89 @@ public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChan
         }
 
         try {
-            switch (channelUID.getId()) {
-                case CHANNEL_POWER:
-                    connector.sendExecCommand("{\"hdmiActive\":" + Boolean.toString(command == OnOffType.ON) + "}");
-                    break;
-                case CHANNEL_MODE:
-                    connector.sendExecCommand("{\"mode\":\"" + command + "\"}");
-                    break;
-                case CHANNEL_BRIGHTNESS:
-                    if (command instanceof OnOffType) {
-                        connector.sendExecCommand("{\"syncActive\":" + Boolean.toString(command == OnOffType.ON) + "}");
-                    } else {
-                        if (hueSyncState.getStateForChannelID(CHANNEL_SYNCSTATUS) == OnOffType.OFF) {
-                            connector.sendExecCommand("{\"syncActive\":true}");
-                        }
-                        int brightness = (int) Double.parseDouble(command.toString()) * 2;
-                        connector.sendExecCommand("{\"brightness\":" + brightness + "}");
-                    }
-                    break;
-                case CHANNEL_INTENSITY:
-                    connector.sendExecCommand("{\"intensity\":\"" + command + "\"}");
-                    break;
-                case CHANNEL_INPUT:
-                    connector.sendExecCommand("{\"hdmiSource\":\"" + command + "\"}");
-                    break;
-                case CHANNEL_SYNCSTATUS:
-                    connector.sendExecCommand("{\"syncActive\":" + Boolean.toString(command == OnOffType.ON) + "}");
-                    break;
-                default:
-                    throw new UnsupportedCommandTypeException();
-            }
+            currentConnector.queueCommand(createExecutionCommand(channelUID.getId(), command));
         } catch (UnsupportedCommandTypeException e) {
             logger.warn("Unsupported command {} for channel {}", command, channelUID.getId());
         }
     }
 
+    /**
+     * Send a command of a sync group to the box.
+     *
+     * @param channelID the channel the command was sent to
+     * @param callback notified when the box has accepted or rejected the command
+     */
+    public void handleGroupCommand(String channelID, Command command, CommandCallback callback) {
+        HueSyncApiConnector currentConnector = connector;
+        if (currentConnector == null || getThing().getStatus() != ThingStatus.ONLINE) {
+            callback.commandCompleted(false);
+            return;
+        }
+        try {
+            currentConnector.queueCommand(createExecutionCommand(channelID, command), callback);
+        } catch (UnsupportedCommandTypeException e) {
+            logger.debug("Unsupported group command {} for channel {}", command, channelID);
+            callback.commandCompleted(false);
+        }
+    }
+
+    private HueSyncExecutionCommand createExecutionCommand(String channelID, Command command)
+            throws UnsupportedCommandTypeException {
+        HueSyncExecutionCommand execution = new HueSyncExecutionCommand();
+        switch (channelID) {
+            case CHANNEL_POWER:
+                execution.withHdmiActive(command == OnOffType.ON);
+                break;
+            case CHANNEL_MODE:
+                execution.withMode(requireValue(Mode.fromValue(command.toString())));
+                break;
+            case CHANNEL_BRIGHTNESS:
+                if (command instanceof OnOffType) {
+                    execution.withSyncActive(command == OnOffType.ON);
+                } else {
+                    if (hueSyncState.getState(HueSyncChannel.SYNC_STATUS) == OnOffType.OFF) {
+                        execution.withSyncActive(true);
+                    }
+                    int brightness = (int) Double.parseDouble(command.toString()) * 2;
+                    execution.withBrightness(brightness);
+                }
+                break;
+            case CHANNEL_INTENSITY:
+                execution.withIntensity(requireValue(Intensity.fromValue(command.toString())));
+                break;
+            case CHANNEL_INPUT:
+                execution.withInput(requireValue(Input.fromValue(command.toString())));
+                break;
+            case CHANNEL_SYNCSTATUS:
+                execution.withSyncActive(command == OnOffType.ON);
+                break;
+            case CHANNEL_ENTERTAINMENT_AREA:
+                execution.withEntertainmentArea(requireValue(findEntertainmentArea(command.toString())));
+                break;
+            default:
+                throw new UnsupportedCommandTypeException();
+        }
+        return execution;
+    }
+
+    private static <T> T requireValue(T value) throws UnsupportedCommandTypeException {
+        if (value == null) {
+            throw new UnsupportedCommandTypeException();
+        }
+        return value;
+    }
+
+    /**
+     * @return the id if the hue bridge has an entertainment area with this id, null otherwise
+     */
+    private String findEntertainmentArea(String id) {
+        HueSyncEntertainmentAreas areas = entertainmentAreas;
+        if (areas == null || !areas.contains(id) || !HueSyncExecutionCommand.isValidEntertainmentAreaId(id)) {
+            return null;
+        }
+        return id;
+    }
+
     public boolean checkConfiguration() {
         // prevent too low values for polling interval
         if (config.httpPollingInterval < 5) {
@@ -113,6 +212,34 @@ public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChan
                     "The polling interval should be at least 5 seconds!");
             return false;
         }
+        if (config.hdmiPollingInterval < 5) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The HDMI polling interval should be at least 5 seconds!");
+            return false;
+        }
+        if (HueSyncPollingStrategy.MODE_ADAPTIVE.equals(config.pollingMode)
+                && (config.minPollingInterval < 5 || config.maxPollingInterval < config.minPollingInterval)) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The minimal polling interval should be at least 5 seconds and not exceed the maximal interval!");
+            return false;
+        }
+        if (config.failureThreshold < 1 || config.circuitOpenDuration < 1
+                || config.maxCircuitOpenDuration < config.circuitOpenDuration) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The failure threshold and open durations must be positive, "
+                            + "the maximal open duration must not be shorter than the open duration!");
+            return false;
+        }
+        if (config.requestRate < 1 || config.requestBurst < 1) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The request rate and the request burst must be at least 1!");
+            return false;
+        }
+        if (config.commandBatchWindow < 0) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
+                    "The command batch window must not be negative!");
+            return false;
+        }
         return true;
     }
 
@@ -122,6 +249,7 @@ public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChan
                 this.getThing().getUID());
 
         cancelRetryJob();
+        disposed = false;
         config = getConfigAs(HueSyncConfiguration.class);
 
         if (!checkConfiguration()) {
@@ -129,25 +257,118 @@ public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChan
         }
 
         hueSyncState = new HueSyncState(this);
-        updateStatus(ThingStatus.UNKNOWN);
+        entertainmentAreas = null;
+        restoreCachedState();
+        circuitBreaker = new HueSyncCircuitBreaker(config.failureThreshold, config.circuitOpenDuration,
+                config.maxCircuitOpenDuration);
+        // shared by the connectors of this thing, so a reconnect does not refill the bucket
+        rateLimiter = new HueSyncRateLimiter(scheduler, config.requestRate, config.requestBurst);
+        metrics = new HueSyncMetrics();
+        if (config.metricsExport) {
+            metricsExporter.export("type=box,thing=" + ObjectName.quote(getThing().getUID().getAsString()), metrics);
+        }
+        if (hueSyncState.getSnapshot().isStale()) {
+            updateStatus(ThingStatus.UNKNOWN, ThingStatusDetail.NONE,
+                    "Showing the last known state until the huesync-box responds");
+        } else {
+            updateStatus(ThingStatus.UNKNOWN);
+        }
 
         if (config.getApiAccessToken().isBlank()) {
-            String warnMessage = "Cannot connect to huesync-box. API Access Token is not available in configuration.";
-            logger.warn(warnMessage);
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, warnMessage);
+            // the connector pairs with the box and reports the progress
+            logger.debug("API Access Token is not available in configuration, pairing with huesync-box");
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_PENDING,
+                    "Pairing with the huesync-box ...");
         }
 
         createConnection();
+        statisticsJob = scheduler.scheduleWithFixedDelay(this::updateStatistics, STATISTICS_INTERVAL_SECONDS,
+                STATISTICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void restoreCachedState() {
+        stateCache = new HueSyncStateCache(getThing().getUID(), scheduler);
+        HueSyncStateCache.Content cached = stateCache.load();
+        deviceInfo = null;
+        if (cached != null) {
+            logger.debug("Restoring cached state of huesync-box {}", getThing().getUID());
+            deviceInfo = cached.getDeviceInfo();
+            if (deviceInfo != null) {
+                updateDeviceProperties(deviceInfo);
+            }
+            hueSyncState.restore(cached.getSnapshot());
+        }
+    }
+
+    private void updateDeviceProperties(HueSyncDeviceInfo deviceInfo) {
+        Map<String, String> properties = editProperties();
+        properties.putAll(deviceInfo.toProperties());
+        updateProperties(properties);
     }
 
     private void createConnection() {
         logger.trace("createConnection()");
-        if (connector != null) {
-            connector.dispose();
+        synchronized (connectionLock) {
+            disposeConnector();
+
+            HueSyncApiConnector newConnector = new HueSyncApiConnector(config, hueSyncState, scheduler, httpClient,
+                    pollingCoordinator, pairingService, circuitBreaker, rateLimiter, metrics);
+            connector = newConnector;
+            newConnector.createConnection(deviceInfo, entertainmentAreas);
+        }
+    }
+
+    /**
+     * Dispose the connector, commands are not sent to a disposed connector
+     */
+    private void disposeConnector() {
+        HueSyncApiConnector currentConnector;
+        synchronized (connectionLock) {
+            currentConnector = connector;
+            connector = null;
         }
+        if (currentConnector != null) {
+            currentConnector.dispose();
+        }
+    }
 
-        connector = new HueSyncApiConnector(config, hueSyncState, scheduler, httpClient);
-        connector.createConnection();
+    /**
+     * Update the linked statistics channels. The statistics are channels rather than properties, so the thing
+     * is not persisted with every update.
+     */
+    private void updateStatistics() {
+        HueSyncApiConnector currentConnector = connector;
+        if (currentConnector != null) {
+            updateStatistic(CHANNEL_POLL_QUEUE_LATENCY, millis(currentConnector.getPollQueueLatencyMillis()));
+            updateStatistic(CHANNEL_POLL_QUEUE_LATENCY_MAX, millis(currentConnector.getMaxPollQueueLatencyMillis()));
+            updateStatistic(CHANNEL_REQUESTS, new DecimalType(currentConnector.getRequestCount()));
+            updateStatistic(CHANNEL_FETCHES_CHANGED, new DecimalType(currentConnector.getChangedFetches()));
+            updateStatistic(CHANNEL_FETCHES_UNCHANGED, new DecimalType(currentConnector.getUnchangedFetches()));
+            updateStatistic(CHANNEL_POLLS_SHED, new DecimalType(currentConnector.getShedPolls()));
+            updateStatistic(CHANNEL_COMMANDS_DELAYED, new DecimalType(currentConnector.getDelayedCommands()));
+            updateStatistic(CHANNEL_CONNECTION_POOL, new StringType(currentConnector.getConnectionPoolDescription()));
+        }
+        // the full histograms are exported via JMX, the channels show the 99th percentile
+        updateStatistic(CHANNEL_POLL_LATENCY, millis(metrics.getRequestLatency(RequestType.STATE)));
+        updateStatistic(CHANNEL_EXECUTION_LATENCY, millis(metrics.getRequestLatency(RequestType.EXECUTION)));
+        updateStatistic(CHANNEL_DECODE_TIME, millis(metrics.getDecodeTime()));
+        updateStatistic(CHANNEL_ERRORS, new DecimalType(metrics.getErrors()));
+        updateStatistic(CHANNEL_TIMEOUTS, new DecimalType(metrics.getTimeouts()));
+        updateStatistic(CHANNEL_RECONNECTS, new DecimalType(metrics.getReconnects()));
+    }
+
+    private void updateStatistic(String channelID, State state) {
+        if (isLinked(channelID)) {
+            updateState(channelID, state);
+        }
+    }
+
+    private static State millis(HueSyncLatencyHistogram histogram) {
+        return new QuantityType<>(histogram.getPercentileMillis(99), MetricPrefix.MILLI(Units.SECOND));
+    }
+
+    private static State millis(long millis) {
+        return new QuantityType<>(millis, MetricPrefix.MILLI(Units.SECOND));
     }
 
     private void cancelRetryJob() {
@@ -158,14 +379,39 @@ public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChan
 
     @Override
     public void dispose() {
-        if (connector != null) {
-            connector.dispose();
-            connector = null;
+        synchronized (connectionLock) {
+            // no retry is scheduled once the handler has been disposed
+            disposed = true;
+            cancelRetryJob();
+            disposeConnector();
         }
-        cancelRetryJob();
+        if (rateLimiter != null) {
+            rateLimiter.dispose();
+            rateLimiter = null;
+        }
+        if (statisticsJob != null) {
+            statisticsJob.cancel(false);
+            statisticsJob = null;
+        }
+        if (stateCache != null) {
+            stateCache.dispose();
+            stateCache = null;
+        }
+        metricsExporter.unexport();
         super.dispose();
     }
 
+    @Override
+    public void handleRemoval() {
+        HueSyncStateCache cache = stateCache;
+        if (cache != null) {
+            cache.delete();
+        } else {
+            new HueSyncStateCache(getThing().getUID(), scheduler).delete();
+        }
+        super.handleRemoval();
+    }
+
     @Override
     public void channelLinked(ChannelUID channelUID) {
         super.channelLinked(channelUID);
@@ -175,43 +421,197 @@ public class HueSyncHandler extends BaseThingHandler implements HueSyncStateChan
             if (state != null) {
                 updateState(channelID, state);
             }
+            HueSyncChannel channel = HueSyncChannel.fromChannelId(channelID);
+            HueSyncApiConnector currentConnector = connector;
+            if (channel != null && currentConnector != null) {
+                currentConnector.channelLinked(channel);
+            }
         }
     }
 
     @Override
-    public void stateChanged(String channelID, State state) {
-        logger.debug("Received state {} for channelID {}", state, channelID);
+    public boolean isLinked(HueSyncChannel channel) {
+        return isLinked(channel.getChannelId());
+    }
 
-        // Don't flood the log with thing 'updated: ONLINE' each time a single channel changed
-        if (this.getThing().getStatus() != ThingStatus.ONLINE) {
+    @Override
+    public void stateChanged(HueSyncStateSnapshot previous, HueSyncStateSnapshot current) {
+        logger.debug("Received state version {}", current.getVersion());
+
+        // Don't flood the log with thing 'updated: ONLINE' each time the state changed
+        if (!current.isStale() && this.getThing().getStatus() != ThingStatus.ONLINE) {
             updateStatus(ThingStatus.ONLINE);
         }
 
-        updateState(channelID, state);
+        // Apply all changes of the snapshot together, unlinked channels get their state when they are linked
+        boolean inputNamesChanged = false;
+        for (HueSyncChannel channel : HueSyncChannel.values()) {
+            State state = current.getState(channel);
+            if (state != null && current.isChanged(channel, previous)) {
+                if (!current.isStale()) {
+                    metrics.recordChange(channel);
+                }
+                inputNamesChanged |= isInputName(channel);
+                String channelID = channel.getChannelId();
+                if (isLinked(channelID)) {
+                    logger.trace("Received state {} for channelID {}", state, channelID);
+                    updateState(channelID, state);
+                }
+            }
+        }
+        if (inputNamesChanged) {
+            updateInputOptions(current);
+        }
+
+        HueSyncStateCache cache = stateCache;
+        if (cache != null) {
+            cache.store(current);
+        }
+    }
+
+    private static boolean isInputName(HueSyncChannel channel) {
+        for (Input input : Input.values()) {
+            if (HueSyncChannel.PORT_NAME[input.ordinal() + 1] == channel) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Label the options of the input channel with the names of the hdmi inputs
+     */
+    private void updateInputOptions(HueSyncStateSnapshot snapshot) {
+        List<StateOption> options = new ArrayList<>();
+        for (Input input : Input.values()) {
+            int port = input.ordinal() + 1;
+            State name = snapshot.getState(HueSyncChannel.PORT_NAME[port]);
+            String label = name == null || name.toString().isBlank() ? "HDMI " + port : name.toString();
+            options.add(new StateOption(input.getValue(), label));
+        }
+        stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), CHANNEL_INPUT), options);
+    }
+
+    @Override
+    public void entertainmentAreasReceived(HueSyncEntertainmentAreas entertainmentAreas) {
+        logger.debug("Received entertainment areas {}", entertainmentAreas.getNames());
+        this.entertainmentAreas = entertainmentAreas;
+        List<StateOption> options = new ArrayList<>();
+        for (Map.Entry<String, String> area : entertainmentAreas.getNames().entrySet()) {
+            options.add(new StateOption(area.getKey(), area.getValue()));
+        }
+        stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), CHANNEL_ENTERTAINMENT_AREA),
+                options);
+    }
+
+    @Override
+    public void deviceInfoReceived(HueSyncDeviceInfo deviceInfo) {
+        this.deviceInfo = deviceInfo;
+        updateDeviceProperties(deviceInfo);
+        HueSyncStateCache cache = stateCache;
+        if (cache != null) {
+            cache.store(deviceInfo);
+        }
+    }
+
+    @Override
+    public void pairingProgress(String message) {
+        updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_PENDING, message);
+    }
 
+    @Override
+    public void pairingCompleted(String apiAccessToken) {
         // Update Thing Configuration
-        if (!config.getApiAccessToken().isBlank()) {
-            if (this.getThing().getConfiguration().get(PARAMETER_API_ACCESS_TOKEN) == null || !this.getThing()
-                    .getConfiguration().get(PARAMETER_API_ACCESS_TOKEN).equals(config.getApiAccessToken())) {
-                logger.debug("API Token changed! Updating Thing Configuration ...");
-                Configuration editConfig = editConfiguration();
-                editConfig.put(PARAMETER_API_ACCESS_TOKEN, config.getApiAccessToken());
-                updateConfiguration(editConfig);
+        Object configuredToken = this.getThing().getConfiguration().get(PARAMETER_API_ACCESS_TOKEN);
+        if (!apiAccessToken.equals(configuredToken)) {
+            logger.debug("API Token changed! Updating Thing Configuration ...");
+            Configuration editConfig = editConfiguration();
+            editConfig.put(PARAMETER_API_ACCESS_TOKEN, apiAccessToken);
+            updateConfiguration(editConfig);
+        }
+    }
+
+    /**
+     * If only the host has changed, e.g. because the discovery found the box at a new address, the connection is
+     * set up again with the new host. The thing keeps its state, circuit breaker and rate limiter. Any other change
+     * of the configuration initializes the thing again.
+     */
+    @Override
+    public void handleConfigurationUpdate(Map<String, Object> configurationParameters) {
+        Configuration configuration = getThing().getConfiguration();
+        Object host = configurationParameters.get(PARAMETER_HOST);
+        boolean onlyHostChanged = host instanceof String && !host.equals(configuration.get(PARAMETER_HOST));
+        for (Map.Entry<String, Object> parameter : configurationParameters.entrySet()) {
+            if (!PARAMETER_HOST.equals(parameter.getKey())
+                    && !Objects.equals(parameter.getValue(), configuration.get(parameter.getKey()))) {
+                onlyHostChanged = false;
+            }
+        }
+        if (!onlyHostChanged || !isInitialized()) {
+            super.handleConfigurationUpdate(configurationParameters);
+            return;
+        }
+        // possibly called from the mDNS thread, the connection is set up again on the thread of the handler
+        scheduler.execute(() -> updateHost((String) host));
+    }
+
+    private void updateHost(String host) {
+        synchronized (connectionLock) {
+            if (disposed) {
+                return;
+            }
+            logger.debug("Host of huesync-box {} changed from {} to {}", getThing().getUID(),
+                    getThing().getConfiguration().get(PARAMETER_HOST), host);
+            Configuration editConfig = editConfiguration();
+            editConfig.put(PARAMETER_HOST, host);
+            updateConfiguration(editConfig);
+
+            config = getConfigAs(HueSyncConfiguration.class);
+            if (connector != null || (retryJob != null && !retryJob.isDone())) {
+                cancelRetryJob();
+                createConnection();
             }
         }
     }
 
     @Override
     public void connectionError(String errorMessage) {
-        logger.debug("huesync-box connection error: {}", errorMessage);
+        synchronized (connectionLock) {
+            logger.debug("huesync-box connection error: {}", errorMessage);
+            if (disposed) {
+                return;
+            }
+            disposeConnector();
+            cancelRetryJob();
+
+            long delay = circuitBreaker.getRemainingOpenMillis();
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    String.format("%s - connection attempt %d failed, trying again in %ds", errorMessage,
+                            circuitBreaker.getConsecutiveOpenings(), TimeUnit.MILLISECONDS.toSeconds(delay)));
 
-        if (this.getThing().getStatus() != ThingStatus.OFFLINE) {
-            // Don't flood the log with thing 'updated: OFFLINE' when already offline
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, errorMessage);
+            logger.debug("Trying again in {}ms", delay);
+            retryJob = scheduler.schedule(this::probeConnection, delay, TimeUnit.MILLISECONDS);
         }
-        connector.dispose();
+    }
 
-        logger.debug("Trying again in {}s", RECONNECT_TIME_SECONDS);
-        retryJob = scheduler.schedule(this::createConnection, RECONNECT_TIME_SECONDS, TimeUnit.SECONDS);
+    private void probeConnection() {
+        synchronized (connectionLock) {
+            if (disposed) {
+                return;
+            }
+            metrics.recordReconnect();
+            circuitBreaker.halfOpen();
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    "Probing the connection to the huesync-box ...");
+            createConnection();
+        }
+    }
+
+    @Override
+    public void connectionEstablished() {
+        logger.debug("huesync-box connection established again");
+        if (this.getThing().getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
     }
 }
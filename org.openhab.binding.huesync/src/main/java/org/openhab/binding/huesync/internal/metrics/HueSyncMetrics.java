@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+
+/**
+ * The {@link HueSyncMetrics} collects the metrics of one huesync-box: round-trip latencies per request type,
+ * the time to decode the box state, state changes per channel, errors, timeouts and reconnects.
+ *
+ * All recording methods are lock-free and do not allocate, so they can be called on every request.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncMetrics implements HueSyncMetricsMXBean {
+
+    /**
+     * The kinds of requests sent to the box
+     */
+    public enum RequestType {
+        STATE,
+        EXECUTION,
+        REGISTRATION,
+        DEVICE,
+        HUE
+    }
+
+    private final HueSyncLatencyHistogram[] requestLatencies = new HueSyncLatencyHistogram[RequestType
+            .values().length];
+    private final HueSyncLatencyHistogram decodeTime = new HueSyncLatencyHistogram();
+    private final AtomicLongArray channelChanges = new AtomicLongArray(HueSyncChannel.count());
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    public HueSyncMetrics() {
+        for (int i = 0; i < requestLatencies.length; i++) {
+            requestLatencies[i] = new HueSyncLatencyHistogram();
+        }
+    }
+
+    public void recordRequest(RequestType type, long nanos) {
+        requestLatencies[type.ordinal()].record(nanos);
+    }
+
+    public void recordDecode(long nanos) {
+        decodeTime.record(nanos);
+    }
+
+    public void recordChange(HueSyncChannel channel) {
+        channelChanges.incrementAndGet(channel.ordinal());
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+
+    public void recordReconnect() {
+        reconnects.increment();
+    }
+
+    public HueSyncLatencyHistogram getRequestLatency(RequestType type) {
+        return requestLatencies[type.ordinal()];
+    }
+
+    public HueSyncLatencyHistogram getDecodeTime() {
+        return decodeTime;
+    }
+
+    public long getChannelChanges(HueSyncChannel channel) {
+        return channelChanges.get(channel.ordinal());
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public Map<String, String> getRequestLatencies() {
+        Map<String, String> latencies = new LinkedHashMap<>();
+        for (RequestType type : RequestType.values()) {
+            latencies.put(type.name().toLowerCase(Locale.ROOT), getRequestLatency(type).summary());
+        }
+        return latencies;
+    }
+
+    @Override
+    public String getDecodeLatency() {
+        return decodeTime.summary();
+    }
+
+    @Override
+    public Map<String, Long> getStateChanges() {
+        Map<String, Long> changes = new LinkedHashMap<>();
+        for (int i = 0; i < channelChanges.length(); i++) {
+            long count = channelChanges.get(i);
+            if (count > 0) {
+                changes.put(HueSyncChannel.fromIndex(i).getChannelId(), count);
+            }
+        }
+        return changes;
+    }
+}
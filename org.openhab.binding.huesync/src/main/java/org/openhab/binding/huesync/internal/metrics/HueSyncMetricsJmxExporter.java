@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.huesync.internal.HueSyncBindingConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HueSyncMetricsJmxExporter} registers the {@link HueSyncMetrics} of a huesync-box, or the statistics
+ * of the binding's http client, with the platform MBean server.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncMetricsJmxExporter {
+
+    private final Logger logger = LoggerFactory.getLogger(HueSyncMetricsJmxExporter.class);
+
+    private @Nullable ObjectName objectName;
+
+    /**
+     * Export the metrics, replacing a previous export.
+     *
+     * @param keyProperties the key properties of the object name in the domain of the binding, e.g.
+     *            <code>type=box,thing="huesync:box:1"</code>
+     * @param mbean the MXBean to export
+     */
+    public synchronized void export(String keyProperties, Object mbean) {
+        unexport();
+        try {
+            ObjectName name = new ObjectName(
+                    "org.openhab.binding." + HueSyncBindingConstants.BINDING_ID + ":" + keyProperties);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            objectName = name;
+        } catch (JMException e) {
+            logger.warn("Could not export metrics {} via JMX: {}", keyProperties, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the exported metrics
+     */
+    public synchronized void unexport() {
+        ObjectName name = objectName;
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                logger.debug("Could not remove metrics {} from JMX: {}", name, e.getMessage());
+            }
+            objectName = null;
+        }
+    }
+}
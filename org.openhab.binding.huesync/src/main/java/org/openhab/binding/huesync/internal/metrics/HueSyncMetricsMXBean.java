@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.metrics;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Management interface to export the {@link HueSyncMetrics} of a huesync-box via JMX.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public interface HueSyncMetricsMXBean {
+
+    long getErrors();
+
+    long getTimeouts();
+
+    long getReconnects();
+
+    /**
+     * @return a summary of the round-trip latencies per request type
+     */
+    Map<String, String> getRequestLatencies();
+
+    /**
+     * @return a summary of the time needed to decode the box state
+     */
+    String getDecodeLatency();
+
+    /**
+     * @return the number of state changes per channel id
+     */
+    Map<String, Long> getStateChanges();
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.State;
+
+/**
+ * Tests for {@link HueSyncStateCache}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncStateCacheTest {
+
+    private @TempDir @NonNullByDefault({}) Path folder;
+
+    private ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+    private HueSyncState state = new HueSyncState(new RecordingStateChangedListener());
+
+    @BeforeEach
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        state = new HueSyncState(new RecordingStateChangedListener());
+        state.setPercent(HueSyncChannel.BRIGHTNESS, 42);
+        state.setSwitch(HueSyncChannel.POWER, true);
+        state.setString(HueSyncChannel.MODE, "video");
+        state.publishPolled();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private Path file() {
+        return folder.resolve("huesync").resolve("box.bin");
+    }
+
+    @Test
+    public void disposeWritesPendingChanges() {
+        HueSyncStateCache cache = new HueSyncStateCache(file(), scheduler);
+        HueSyncDeviceInfo deviceInfo = new HueSyncDeviceInfo("Living room", "HSB1", "C42996000000", "1.12.0", 7, 16,
+                16, 1234L);
+        cache.store(state.getSnapshot());
+        cache.store(deviceInfo);
+        assertFalse(Files.exists(file()));
+
+        cache.dispose();
+
+        HueSyncStateCache.Content content = new HueSyncStateCache(file(), scheduler).load();
+        assertNotNull(content);
+        HueSyncStateSnapshot snapshot = content.getSnapshot();
+        assertTrue(snapshot.isStale());
+        assertEquals(new PercentType(42), snapshot.getState(HueSyncChannel.BRIGHTNESS));
+        assertEquals(OnOffType.ON, snapshot.getState(HueSyncChannel.POWER));
+        assertEquals(StringType.valueOf("video"), snapshot.getState(HueSyncChannel.MODE));
+        HueSyncDeviceInfo cachedDeviceInfo = content.getDeviceInfo();
+        assertNotNull(cachedDeviceInfo);
+        assertEquals("C42996000000", cachedDeviceInfo.getUniqueId());
+        assertEquals(1234L, cachedDeviceInfo.getRetrievedAt());
+    }
+
+    @Test
+    public void staleSnapshotsAreNotStored() {
+        HueSyncStateCache cache = new HueSyncStateCache(file(), scheduler);
+        cache.store(new HueSyncStateSnapshot(2, new State[HueSyncChannel.count()], true));
+
+        cache.dispose();
+
+        assertFalse(Files.exists(file()));
+        assertNull(new HueSyncStateCache(file(), scheduler).load());
+    }
+
+    @Test
+    public void deleteRemovesTheFileAndStopsWriting() {
+        HueSyncStateCache cache = new HueSyncStateCache(file(), scheduler);
+        cache.store(state.getSnapshot());
+        cache.dispose();
+        assertTrue(Files.exists(file()));
+
+        cache.delete();
+        cache.store(state.getSnapshot());
+        cache.dispose();
+
+        assertFalse(Files.exists(file()));
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.State;
+
+/**
+ * Tests for {@link HueSyncState}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncStateTest {
+
+    private RecordingStateChangedListener listener = new RecordingStateChangedListener();
+    private HueSyncState state = new HueSyncState(listener);
+
+    @BeforeEach
+    public void setUp() {
+        listener = new RecordingStateChangedListener();
+        state = new HueSyncState(listener);
+    }
+
+    private void poll(int brightness) {
+        state.setPercent(HueSyncChannel.BRIGHTNESS, brightness);
+        state.publishPolled();
+    }
+
+    private @Nullable State brightness() {
+        return state.getState(HueSyncChannel.BRIGHTNESS);
+    }
+
+    @Test
+    public void publishOnlyChanges() {
+        poll(10);
+        poll(10);
+
+        assertEquals(1, listener.snapshots.size());
+        assertEquals(1, state.getSnapshot().getVersion());
+
+        poll(20);
+
+        assertEquals(2, listener.snapshots.size());
+        assertEquals(new PercentType(20), brightness());
+        assertTrue(listener.snapshots.get(1).isChanged(HueSyncChannel.BRIGHTNESS, listener.snapshots.get(0)));
+        assertFalse(listener.snapshots.get(1).isChanged(HueSyncChannel.MODE, listener.snapshots.get(0)));
+    }
+
+    @Test
+    public void listenerIsNotifiedWithoutTheLockOfTheState() {
+        List<Boolean> lockHeld = new ArrayList<>();
+        HueSyncState[] notifying = new HueSyncState[1];
+        HueSyncState lockedState = new HueSyncState(new RecordingStateChangedListener() {
+            @Override
+            public void stateChanged(HueSyncStateSnapshot previous, HueSyncStateSnapshot current) {
+                lockHeld.add(Thread.holdsLock(notifying[0]));
+                super.stateChanged(previous, current);
+            }
+        });
+        notifying[0] = lockedState;
+        HueSyncState cached = new HueSyncState(new RecordingStateChangedListener());
+        cached.setPercent(HueSyncChannel.BRIGHTNESS, 40);
+        cached.publishPolled();
+
+        lockedState.restore(cached.getSnapshot());
+        lockedState.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+        lockedState.publish();
+        lockedState.publishPolled();
+
+        assertEquals(List.of(false, false, false), lockHeld);
+    }
+
+    @Test
+    public void listenerIsNotifiedInVersionOrder() {
+        poll(10);
+        poll(20);
+        poll(30);
+
+        assertEquals(3, listener.snapshots.size());
+        for (int i = 0; i < listener.snapshots.size(); i++) {
+            assertEquals(i + 1, listener.snapshots.get(i).getVersion());
+        }
+    }
+
+    @Test
+    public void pendingValueIsNotOverwrittenWhileInFlight() {
+        poll(10);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+        state.publish();
+        assertEquals(new PercentType(80), brightness());
+
+        poll(10);
+
+        assertEquals(new PercentType(80), brightness());
+        assertEquals(1, state.getDivergenceCount());
+    }
+
+    @Test
+    public void sentValueIsReconciledByTheNextPoll() {
+        poll(10);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+
+        // a poll which started before the command was sent may still report the old value
+        assertFalse(state.beginReconcile());
+        state.commandCompleted(HueSyncChannel.BRIGHTNESS, true);
+        poll(10);
+        state.endReconcile(true);
+        assertEquals(new PercentType(80), brightness());
+
+        assertTrue(state.beginReconcile());
+        poll(80);
+        state.endReconcile(true);
+        assertEquals(new PercentType(80), brightness());
+
+        // the channel is confirmed, so later polls are taken as they are
+        assertFalse(state.beginReconcile());
+        poll(30);
+        assertEquals(new PercentType(30), brightness());
+    }
+
+    @Test
+    public void reconcilingPollTakesTheValueReportedByTheBox() {
+        poll(10);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+        state.commandCompleted(HueSyncChannel.BRIGHTNESS, true);
+
+        assertTrue(state.beginReconcile());
+        poll(60);
+        state.endReconcile(true);
+
+        assertEquals(new PercentType(60), brightness());
+    }
+
+    @Test
+    public void failedPollReconcilesWithTheNextPoll() {
+        poll(10);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+        state.commandCompleted(HueSyncChannel.BRIGHTNESS, true);
+
+        assertTrue(state.beginReconcile());
+        state.endReconcile(false);
+
+        assertTrue(state.beginReconcile());
+        poll(80);
+        state.endReconcile(true);
+        assertFalse(state.beginReconcile());
+    }
+
+    @Test
+    public void failedCommandIsRolledBack() {
+        poll(10);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 90);
+        state.publish();
+        assertEquals(new PercentType(90), brightness());
+
+        state.commandCompleted(HueSyncChannel.BRIGHTNESS, false);
+        state.publish();
+
+        // rolled back to the value reported by the box, not to the first commanded value
+        assertEquals(new PercentType(10), brightness());
+        assertEquals(1, state.getDivergenceCount());
+
+        poll(20);
+        assertEquals(new PercentType(20), brightness());
+    }
+
+    @Test
+    public void failedCommandWithoutPolledValueKeepsTheCommandedValue() {
+        state.setPendingSwitch(HueSyncChannel.POWER, true);
+        state.commandCompleted(HueSyncChannel.POWER, false);
+        state.publish();
+
+        assertEquals(OnOffType.ON, state.getState(HueSyncChannel.POWER));
+    }
+
+    @Test
+    public void completionOfUnknownCommandIsIgnored() {
+        poll(10);
+        state.commandCompleted(HueSyncChannel.BRIGHTNESS, false);
+        state.commandCompleted(HueSyncChannel.BRIGHTNESS, true);
+
+        assertFalse(state.beginReconcile());
+        assertEquals(0, state.getDivergenceCount());
+    }
+
+    @Test
+    public void clearPendingAcceptsTheNextPoll() {
+        poll(10);
+        state.setPendingPercent(HueSyncChannel.BRIGHTNESS, 80);
+        state.setPendingString(HueSyncChannel.MODE, "music");
+        state.clearPending();
+
+        assertEquals(2, state.getDivergenceCount());
+
+        state.setString(HueSyncChannel.MODE, "video");
+        poll(10);
+
+        assertEquals(new PercentType(10), brightness());
+        assertEquals(StringType.valueOf("video"), state.getState(HueSyncChannel.MODE));
+    }
+
+    @Test
+    public void restoredSnapshotIsStaleUntilPolled() {
+        HueSyncState cached = new HueSyncState(new RecordingStateChangedListener());
+        cached.setSwitch(HueSyncChannel.POWER, true);
+        cached.setPercent(HueSyncChannel.BRIGHTNESS, 40);
+        cached.setString(HueSyncChannel.MODE, "game");
+        cached.publishPolled();
+
+        state.restore(cached.getSnapshot());
+
+        assertTrue(state.getSnapshot().isStale());
+        assertEquals(OnOffType.ON, state.getState(HueSyncChannel.POWER));
+        assertEquals(new PercentType(40), brightness());
+        assertEquals(StringType.valueOf("game"), state.getState(HueSyncChannel.MODE));
+
+        // a command does not confirm the restored values
+        state.setPendingString(HueSyncChannel.MODE, "video");
+        state.publish();
+        assertTrue(state.getSnapshot().isStale());
+
+        // the first successful poll does, even if no polled value differs from the restored ones
+        poll(40);
+        assertFalse(state.getSnapshot().isStale());
+    }
+
+    @Test
+    public void restoreIsIgnoredOncePublished() {
+        poll(10);
+        HueSyncState cached = new HueSyncState(new RecordingStateChangedListener());
+        cached.setPercent(HueSyncChannel.BRIGHTNESS, 40);
+        cached.publishPolled();
+
+        state.restore(cached.getSnapshot());
+
+        assertEquals(new PercentType(10), brightness());
+        assertFalse(state.getSnapshot().isStale());
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link RecordingStateChangedListener} records the notifications of a {@link HueSyncState} for tests.
+ * All channels are linked unless they are unlinked explicitly. The notifications may be recorded on any thread.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class RecordingStateChangedListener implements HueSyncStateChangedListener {
+
+    public final List<HueSyncStateSnapshot> snapshots = Collections.synchronizedList(new ArrayList<>());
+    public final List<HueSyncDeviceInfo> deviceInfos = Collections.synchronizedList(new ArrayList<>());
+    public final List<HueSyncEntertainmentAreas> entertainmentAreas = Collections.synchronizedList(new ArrayList<>());
+    public final List<String> connectionErrors = Collections.synchronizedList(new ArrayList<>());
+    public final List<String> pairingProgress = Collections.synchronizedList(new ArrayList<>());
+    public final List<String> apiAccessTokens = Collections.synchronizedList(new ArrayList<>());
+    public final Set<HueSyncChannel> unlinked = ConcurrentHashMap.newKeySet();
+    public final AtomicInteger connectionsEstablished = new AtomicInteger();
+
+    @Override
+    public void stateChanged(HueSyncStateSnapshot previous, HueSyncStateSnapshot current) {
+        snapshots.add(current);
+    }
+
+    @Override
+    public void deviceInfoReceived(HueSyncDeviceInfo deviceInfo) {
+        deviceInfos.add(deviceInfo);
+    }
+
+    @Override
+    public void entertainmentAreasReceived(HueSyncEntertainmentAreas areas) {
+        entertainmentAreas.add(areas);
+    }
+
+    @Override
+    public boolean isLinked(HueSyncChannel channel) {
+        return !unlinked.contains(channel);
+    }
+
+    @Override
+    public void pairingProgress(String message) {
+        pairingProgress.add(message);
+    }
+
+    @Override
+    public void pairingCompleted(String apiAccessToken) {
+        apiAccessTokens.add(apiAccessToken);
+    }
+
+    @Override
+    public void connectionError(String errorMessage) {
+        connectionErrors.add(errorMessage);
+    }
+
+    @Override
+    public void connectionEstablished() {
+        connectionsEstablished.incrementAndGet();
+    }
+}
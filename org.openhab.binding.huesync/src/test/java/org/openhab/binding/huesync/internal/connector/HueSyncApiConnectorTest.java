@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncState;
+import org.openhab.binding.huesync.internal.HueSyncStateSnapshot;
+import org.openhab.binding.huesync.internal.RecordingStateChangedListener;
+import org.openhab.binding.huesync.internal.config.HueSyncConfiguration;
+import org.openhab.binding.huesync.internal.connector.HueSyncBoxSimulator.Fault;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Mode;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics.RequestType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+
+/**
+ * Tests for {@link HueSyncApiConnector} against the {@link HueSyncBoxSimulator}, including the faults injected by
+ * the simulator.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncApiConnectorTest {
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(20);
+
+    private final HueSyncBoxSimulator simulator = new HueSyncBoxSimulator();
+    private final RecordingStateChangedListener listener = new RecordingStateChangedListener();
+    private final HueSyncState state = new HueSyncState(listener);
+    private final HueSyncMetrics metrics = new HueSyncMetrics();
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(2);
+    private final HttpClient httpClient = new HttpClient(new SslContextFactory.Client(true));
+    private final HueSyncPairingService pairingService = new HueSyncPairingService(httpClient, scheduler);
+    private @Nullable HueSyncApiConnector connector;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        simulator.start();
+        httpClient.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        HueSyncApiConnector currentConnector = connector;
+        if (currentConnector != null) {
+            currentConnector.dispose();
+        }
+        pairingService.dispose();
+        scheduler.shutdownNow();
+        httpClient.stop();
+        simulator.stop();
+    }
+
+    private HueSyncConfiguration createConfiguration() {
+        HueSyncConfiguration config = new HueSyncConfiguration();
+        config.setHost(simulator.getHost());
+        config.setApiAccessToken(HueSyncBoxSimulator.API_ACCESS_TOKEN);
+        config.httpPollingInterval = 1;
+        config.commandBatchWindow = 0;
+        config.requestRate = 100;
+        config.requestBurst = 20;
+        return config;
+    }
+
+    private HueSyncApiConnector connect(HueSyncConfiguration config) {
+        HueSyncApiConnector newConnector = new HueSyncApiConnector(config, state, scheduler, httpClient,
+                new HueSyncPollingCoordinator(scheduler, 4), pairingService, new HueSyncCircuitBreaker(
+                        config.failureThreshold, config.circuitOpenDuration, config.maxCircuitOpenDuration),
+                new HueSyncRateLimiter(scheduler, config.requestRate, config.requestBurst), metrics);
+        connector = newConnector;
+        newConnector.createConnection(null, null);
+        return newConnector;
+    }
+
+    private static void waitFor(String description, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + description);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    // connectionEstablished() is only reported after the circuit had been open, a fresh connector is connected
+    // once the first poll has been published
+    private void waitForConnection() throws InterruptedException {
+        waitFor("the connection", () -> {
+            HueSyncStateSnapshot snapshot = state.getSnapshot();
+            return snapshot.getVersion() > 0 && !snapshot.isStale();
+        });
+    }
+
+    private void waitForPoll() throws InterruptedException {
+        int polls = simulator.countRequests("GET", "/execution");
+        waitFor("the next poll", () -> simulator.countRequests("GET", "/execution") > polls + 1);
+    }
+
+    @Test
+    public void connectionIsEstablishedByTheFirstPoll() throws InterruptedException {
+        connect(createConfiguration());
+
+        waitForConnection();
+
+        assertEquals("GET /device", simulator.getRequests().get(0));
+        assertEquals("Simulator", listener.deviceInfos.get(0).getName());
+        assertEquals(StringType.valueOf("video"), state.getState(HueSyncChannel.MODE));
+        assertEquals(new PercentType(50), state.getState(HueSyncChannel.BRIGHTNESS));
+        assertEquals(StringType.valueOf("Apple TV"), state.getState(HueSyncChannel.PORT_NAME[1]));
+        waitFor("the entertainment areas", () -> !listener.entertainmentAreas.isEmpty());
+        assertTrue(listener.entertainmentAreas.get(0).contains("9"));
+        assertFalse(state.getSnapshot().isStale());
+        assertTrue(listener.connectionErrors.isEmpty());
+    }
+
+    @Test
+    public void commandIsReconciledByTheNextPoll() throws InterruptedException {
+        HueSyncApiConnector apiConnector = connect(createConfiguration());
+        waitFor("the first poll", () -> state.getState(HueSyncChannel.MODE) != null);
+        BlockingQueue<Boolean> results = new LinkedBlockingQueue<>();
+
+        apiConnector.queueCommand(new HueSyncExecutionCommand().withMode(Mode.GAME).withBrightness(40), results::add);
+
+        // the commanded values are shown before the box has confirmed them
+        assertEquals(StringType.valueOf("game"), state.getState(HueSyncChannel.MODE));
+        assertEquals(new PercentType(20), state.getState(HueSyncChannel.BRIGHTNESS));
+        assertEquals(Boolean.TRUE, results.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(List.of("{\"brightness\":40,\"mode\":\"game\"}"), simulator.getCommands());
+        assertEquals("game", simulator.getMode());
+
+        waitForPoll();
+        assertEquals(StringType.valueOf("game"), state.getState(HueSyncChannel.MODE));
+
+        // once reconciled, changes made on the box are taken again
+        simulator.setMode("music");
+        waitFor("the mode changed on the box", () -> StringType.valueOf("music")
+                .equals(state.getState(HueSyncChannel.MODE)));
+    }
+
+    @Test
+    public void unchangedDocumentsAreNotDecodedAgain() throws InterruptedException {
+        HueSyncApiConnector apiConnector = connect(createConfiguration());
+        waitFor("the first poll", () -> state.getState(HueSyncChannel.MODE) != null);
+        long version = state.getSnapshot().getVersion();
+
+        waitForPoll();
+
+        assertTrue(apiConnector.getUnchangedFetches() > 0);
+        assertEquals(version, state.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void serverErrorsBelowTheThresholdAreRetried() throws InterruptedException {
+        connect(createConfiguration());
+        waitForConnection();
+        int polls = simulator.countRequests("GET", "/execution");
+
+        simulator.injectFault("GET", "/execution", Fault.SERVER_ERROR, 2);
+        waitFor("the failed polls", () -> simulator.countRequests("GET", "/execution") >= polls + 2);
+        waitForPoll();
+
+        // the circuit never opened
+        assertTrue(listener.connectionErrors.isEmpty());
+        assertEquals(0, listener.connectionsEstablished.get());
+        assertFalse(state.getSnapshot().isStale());
+    }
+
+    @Test
+    public void serverErrorsOpenTheCircuitAtTheThreshold() throws InterruptedException {
+        connect(createConfiguration());
+        waitForConnection();
+
+        simulator.injectFault("GET", "/execution", Fault.SERVER_ERROR, 3);
+        waitFor("the connection error", () -> !listener.connectionErrors.isEmpty());
+
+        assertTrue(listener.connectionErrors.get(0).contains("500"), listener.connectionErrors.get(0));
+        // polling stops until the box is probed again
+        int polls = simulator.countRequests("GET", "/execution");
+        Thread.sleep(TimeUnit.SECONDS.toMillis(3));
+        assertEquals(polls, simulator.countRequests("GET", "/execution"));
+    }
+
+    @Test
+    public void timedOutPollIsRetried() throws InterruptedException {
+        connect(createConfiguration());
+        waitForConnection();
+
+        simulator.injectFault("GET", "/execution", Fault.TIMEOUT, 1);
+        waitFor("the timeout", () -> metrics.getTimeouts() == 1);
+        waitForPoll();
+
+        assertTrue(listener.connectionErrors.isEmpty());
+        assertEquals(1, metrics.getErrors());
+    }
+
+    @Test
+    public void disconnectedPollIsRetried() throws InterruptedException {
+        connect(createConfiguration());
+        waitForConnection();
+
+        simulator.injectFault("GET", "/execution", Fault.DISCONNECT, 1);
+        waitFor("the failed poll", () -> metrics.getErrors() > 0);
+        waitForPoll();
+
+        assertTrue(listener.connectionErrors.isEmpty());
+        assertEquals(0, metrics.getTimeouts());
+    }
+
+    @Test
+    public void rejectedCommandIsRolledBack() throws InterruptedException {
+        HueSyncApiConnector apiConnector = connect(createConfiguration());
+        waitForConnection();
+        BlockingQueue<Boolean> results = new LinkedBlockingQueue<>();
+
+        simulator.injectFault("PUT", "/execution", Fault.SERVER_ERROR, 1);
+        apiConnector.queueCommand(new HueSyncExecutionCommand().withMode(Mode.MUSIC), results::add);
+
+        assertEquals(Boolean.FALSE, results.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(StringType.valueOf("video"), state.getState(HueSyncChannel.MODE));
+        assertEquals("video", simulator.getMode());
+    }
+
+    @Test
+    public void latencyIsRecorded() throws InterruptedException {
+        simulator.setLatency(200);
+        connect(createConfiguration());
+        waitForConnection();
+
+        assertTrue(metrics.getRequestLatency(RequestType.DEVICE).getMeanMillis() >= 200);
+        assertTrue(metrics.getRequestLatency(RequestType.STATE).getMeanMillis() >= 200);
+    }
+
+    @Test
+    public void pairingWaitsForTheButton() throws InterruptedException {
+        HueSyncConfiguration config = createConfiguration();
+        config.setApiAccessToken("");
+        connect(config);
+
+        waitFor("the pairing progress", () -> !listener.pairingProgress.isEmpty());
+        assertTrue(listener.pairingProgress.get(0).contains("pairing button"));
+        assertTrue(simulator.getRequests().contains("POST /registrations"));
+
+        simulator.pressPairingButton();
+        waitFor("the access token", () -> !listener.apiAccessTokens.isEmpty());
+
+        assertEquals(HueSyncBoxSimulator.API_ACCESS_TOKEN, listener.apiAccessTokens.get(0));
+        // the progress is only reported once while the box keeps waiting for the button
+        assertEquals(1, listener.pairingProgress.size());
+        waitForConnection();
+    }
+}
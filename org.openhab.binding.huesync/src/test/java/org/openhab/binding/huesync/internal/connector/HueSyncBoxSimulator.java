@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * The {@link HueSyncBoxSimulator} is a stand-in for the HTTPS api of a huesync-box, so the connector can be
+ * tested without a box. It serves the <code>/device</code>, <code>/execution</code>, <code>/hdmi</code> and
+ * <code>/hue</code> documents, applies the commands sent to <code>/execution</code> and answers registrations
+ * with code 16 until the pairing button has been pressed.
+ *
+ * Faults are injected per request: the box answers with an error, answers only after the request timeout of the
+ * connector or closes the connection without answering. All responses can be delayed by a fixed latency.
+ *
+ * For load tests, the simulator can listen on many ports. Every port is a box of its own for the http client,
+ * all of them share the state of the simulator.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncBoxSimulator {
+
+    public static final String API_ACCESS_TOKEN = "simulator-token";
+    private static final String KEYSTORE = "simulator.p12";
+    private static final String KEYSTORE_PASSWORD = "simulator";
+    private static final String API_PATH = "/api/v1";
+    // longer than the request timeout of the connector
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(6);
+
+    public enum Fault {
+        /**
+         * Answer with status 500
+         */
+        SERVER_ERROR,
+        /**
+         * Answer after the connector has given up waiting
+         */
+        TIMEOUT,
+        /**
+         * Close the connection without answering
+         */
+        DISCONNECT
+    }
+
+    private final Server server = new Server();
+    private final List<Integer> ports = new ArrayList<>();
+
+    private final List<String> requests = new ArrayList<>();
+    private final List<String> commands = new ArrayList<>();
+    private final Map<String, Deque<Fault>> faults = new HashMap<>();
+    private long latencyMillis;
+    private boolean pairingButtonPressed;
+    private boolean hdmiActive = true;
+    private boolean syncActive = false;
+    private String mode = "video";
+    private String hdmiSource = "input1";
+    private int brightness = 100;
+    private String hueTarget = "groups/7";
+    private String intensity = "moderate";
+    private String firmwareVersion = "1.12.0";
+
+    /**
+     * Start the simulator on a free port of the loopback interface.
+     */
+    public void start() throws Exception {
+        start(1);
+    }
+
+    /**
+     * Start the simulator on free ports of the loopback interface.
+     *
+     * @param boxes the number of ports to listen on
+     */
+    public void start(int boxes) throws Exception {
+        URL keyStore = HueSyncBoxSimulator.class.getResource(KEYSTORE);
+        if (keyStore == null) {
+            throw new IllegalStateException("Key store " + KEYSTORE + " not found");
+        }
+        SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath(keyStore.toExternalForm());
+        sslContextFactory.setKeyStorePassword(KEYSTORE_PASSWORD);
+        sslContextFactory.setKeyStoreType("PKCS12");
+
+        // every port takes a thread of the pool for its selector, which also accepts the connections
+        QueuedThreadPool threadPool = (QueuedThreadPool) server.getThreadPool();
+        threadPool.setMaxThreads(Math.max(threadPool.getMaxThreads(), boxes + 50));
+        List<ServerConnector> connectors = new ArrayList<>(boxes);
+        for (int i = 0; i < boxes; i++) {
+            ServerConnector connector = new ServerConnector(server, 0, 1, sslContextFactory);
+            connector.setHost("127.0.0.1");
+            connector.setPort(0);
+            server.addConnector(connector);
+            connectors.add(connector);
+        }
+        server.setHandler(new ApiHandler());
+        server.start();
+        for (ServerConnector connector : connectors) {
+            ports.add(connector.getLocalPort());
+        }
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+    }
+
+    /**
+     * @return the host to configure, including the port of the simulator
+     */
+    public String getHost() {
+        return getHosts().get(0);
+    }
+
+    /**
+     * @return the hosts to configure, one per port the simulator listens on
+     */
+    public List<String> getHosts() {
+        List<String> hosts = new ArrayList<>(ports.size());
+        for (int port : ports) {
+            hosts.add("127.0.0.1:" + port);
+        }
+        return hosts;
+    }
+
+    /**
+     * @return the requests received so far, e.g. "GET /execution"
+     */
+    public synchronized List<String> getRequests() {
+        return List.copyOf(requests);
+    }
+
+    /**
+     * @return the number of requests received for the path, e.g. "/execution"
+     */
+    public synchronized int countRequests(String method, String path) {
+        String request = method + " " + path;
+        return (int) requests.stream().filter(request::equals).count();
+    }
+
+    /**
+     * @return the bodies of the commands received so far
+     */
+    public synchronized List<String> getCommands() {
+        return List.copyOf(commands);
+    }
+
+    /**
+     * Inject a fault into the next requests of the path.
+     *
+     * @param path the path relative to the api root, e.g. "/execution"
+     * @param count the number of requests to fail
+     */
+    public synchronized void injectFault(String method, String path, Fault fault, int count) {
+        Deque<Fault> pathFaults = faults.computeIfAbsent(method + " " + path, key -> new ArrayDeque<>());
+        for (int i = 0; i < count; i++) {
+            pathFaults.add(fault);
+        }
+    }
+
+    /**
+     * Delay all responses
+     */
+    public synchronized void setLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Accept the next registration, as if the pairing button of the box has been pressed
+     */
+    public synchronized void pressPairingButton() {
+        pairingButtonPressed = true;
+    }
+
+    /**
+     * Change the mode of the box, e.g. as if it was changed by the app
+     */
+    public synchronized void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public synchronized String getMode() {
+        return mode;
+    }
+
+    public synchronized int getBrightness() {
+        return brightness;
+    }
+
+    public synchronized void setFirmwareVersion(String firmwareVersion) {
+        this.firmwareVersion = firmwareVersion;
+    }
+
+    /**
+     * Record a request and take the fault to inject into it
+     *
+     * @return the fault, or null if the request is to be answered
+     */
+    private synchronized @Nullable Fault receive(String method, String path) {
+        String request = method + " " + path;
+        requests.add(request);
+        Deque<Fault> pathFaults = faults.get(request);
+        return pathFaults == null ? null : pathFaults.poll();
+    }
+
+    private synchronized long getLatency() {
+        return latencyMillis;
+    }
+
+    /**
+     * Handle a request to the api. The path is relative to the api root, e.g. "/execution".
+     *
+     * @return the status and the document to respond with
+     */
+    private synchronized Reply handle(String method, String path, @Nullable String authorization,
+            @Nullable String body) {
+        boolean authorized = ("Bearer " + API_ACCESS_TOKEN).equals(authorization);
+
+        switch (method + " " + path) {
+            case "GET /device":
+                return Reply.ok("{\"name\":\"Simulator\",\"deviceType\":\"HSB1\",\"uniqueId\":\"C42996000000\","
+                        + "\"apiLevel\":7,\"firmwareVersion\":\"" + firmwareVersion + "\","
+                        + "\"capabilities\":{\"maxIrCodes\":16,\"maxPresets\":16}}");
+            case "GET /execution":
+                return authorized ? Reply.ok(executionDocument()) : Reply.UNAUTHORIZED;
+            case "PUT /execution":
+                if (!authorized) {
+                    return Reply.UNAUTHORIZED;
+                }
+                return execute(body) ? Reply.ok("{}") : Reply.BAD_REQUEST;
+            case "GET /hdmi":
+                return authorized ? Reply.ok("{\"input1\":{\"name\":\"Apple TV\",\"type\":\"generic\","
+                        + "\"status\":\"connected\",\"lastSyncMode\":\"video\"},\"output\":{\"name\":\"TV\","
+                        + "\"type\":\"tv\",\"status\":\"plugged\",\"lastSyncMode\":\"video\"}}") : Reply.UNAUTHORIZED;
+            case "POST /registrations":
+                if (!pairingButtonPressed) {
+                    return new Reply(HttpStatus.BAD_REQUEST_400, "{\"code\":16,\"message\":\"Invalid State\"}");
+                }
+                return Reply.ok("{\"registrationId\":\"1\",\"accessToken\":\"" + API_ACCESS_TOKEN + "\"}");
+            case "GET /hue":
+                return authorized ? Reply.ok("{\"bridgeUniqueId\":\"001788\",\"groups\":{\"7\":{\"name\":\"TV\"},"
+                        + "\"9\":{\"name\":\"Desk\"}}}") : Reply.UNAUTHORIZED;
+            default:
+                return Reply.NOT_FOUND;
+        }
+    }
+
+    private String executionDocument() {
+        return "{\"mode\":\"" + mode + "\",\"hdmiActive\":" + hdmiActive + ",\"syncActive\":" + syncActive
+                + ",\"hdmiSource\":\"" + hdmiSource + "\",\"brightness\":" + brightness + ",\"hueTarget\":\""
+                + hueTarget + "\",\"video\":{\"intensity\":\"" + intensity + "\"},\"music\":{\"intensity\":\""
+                + intensity + "\"},\"game\":{\"intensity\":\"" + intensity + "\"}}";
+    }
+
+    private boolean execute(@Nullable String body) {
+        JsonObject command;
+        try {
+            command = JsonParser.parseString(body == null ? "" : body).getAsJsonObject();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        commands.add(command.toString());
+        for (Map.Entry<String, JsonElement> field : command.entrySet()) {
+            JsonElement value = field.getValue();
+            switch (field.getKey()) {
+                case "hdmiActive":
+                    hdmiActive = value.getAsBoolean();
+                    break;
+                case "syncActive":
+                    syncActive = value.getAsBoolean();
+                    break;
+                case "mode":
+                    mode = value.getAsString();
+                    break;
+                case "hdmiSource":
+                    hdmiSource = value.getAsString();
+                    break;
+                case "brightness":
+                    brightness = value.getAsInt();
+                    break;
+                case "hueTarget":
+                    hueTarget = value.getAsString();
+                    break;
+                case "intensity":
+                    intensity = value.getAsString();
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The reply to a request
+     */
+    private static class Reply {
+        static final Reply UNAUTHORIZED = new Reply(HttpStatus.UNAUTHORIZED_401, null);
+        static final Reply BAD_REQUEST = new Reply(HttpStatus.BAD_REQUEST_400, null);
+        static final Reply NOT_FOUND = new Reply(HttpStatus.NOT_FOUND_404, null);
+        static final Reply SERVER_ERROR = new Reply(HttpStatus.INTERNAL_SERVER_ERROR_500,
+                "{\"code\":500,\"message\":\"Internal Error\"}");
+
+        final int status;
+        final @Nullable String document;
+
+        Reply(int status, @Nullable String document) {
+            this.status = status;
+            this.document = document;
+        }
+
+        static Reply ok(String document) {
+            return new Reply(HttpStatus.OK_200, document);
+        }
+    }
+
+    private class ApiHandler extends AbstractHandler {
+        @Override
+        public void handle(@Nullable String target, @Nullable Request baseRequest,
+                @Nullable HttpServletRequest request, @Nullable HttpServletResponse response) throws IOException {
+            if (target == null || baseRequest == null || request == null || response == null) {
+                return;
+            }
+            baseRequest.setHandled(true);
+            if (!target.startsWith(API_PATH)) {
+                response.sendError(HttpStatus.NOT_FOUND_404);
+                return;
+            }
+
+            String body = null;
+            if ("PUT".equals(request.getMethod()) || "POST".equals(request.getMethod())) {
+                StringBuilder content = new StringBuilder();
+                char[] chunk = new char[256];
+                int length;
+                while ((length = request.getReader().read(chunk)) > 0) {
+                    content.append(chunk, 0, length);
+                }
+                body = content.toString();
+            }
+
+            String method = request.getMethod();
+            String path = target.substring(API_PATH.length());
+            Fault fault = receive(method, path);
+            try {
+                long latency = getLatency();
+                if (latency > 0) {
+                    Thread.sleep(latency);
+                }
+                if (fault == Fault.TIMEOUT) {
+                    Thread.sleep(TIMEOUT_MILLIS);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (fault == Fault.DISCONNECT) {
+                baseRequest.getHttpChannel().getEndPoint().close();
+                return;
+            }
+
+            Reply reply = fault == Fault.SERVER_ERROR ? Reply.SERVER_ERROR
+                    : HueSyncBoxSimulator.this.handle(method, path, request.getHeader("Authorization"), body);
+            response.setStatus(reply.status);
+            String document = reply.document;
+            if (document != null) {
+                response.setContentType("application/json");
+                response.getWriter().write(document);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.huesync.internal.connector.HueSyncCircuitBreaker.State;
+
+/**
+ * Tests for {@link HueSyncCircuitBreaker}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncCircuitBreakerTest {
+
+    private final HueSyncCircuitBreaker breaker = new HueSyncCircuitBreaker(3, 10, 40);
+
+    private void assertOpenFor(long expectedSeconds) {
+        long remaining = breaker.getRemainingOpenMillis();
+        // the duration is jittered by up to 20 percent, allow some time to pass since it opened
+        assertTrue(remaining <= expectedSeconds * 1200, "remaining " + remaining);
+        assertTrue(remaining >= expectedSeconds * 800 - 1000, "remaining " + remaining);
+    }
+
+    @Test
+    public void opensWhenTheThresholdIsReached() {
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getRemainingOpenMillis());
+
+        assertTrue(breaker.recordFailure());
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getConsecutiveOpenings());
+        assertOpenFor(10);
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertFalse(breaker.recordSuccess());
+
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedProbeOpensAgainWithDoubledDuration() {
+        breaker.trip();
+        assertOpenFor(10);
+
+        breaker.halfOpen();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertEquals(0, breaker.getRemainingOpenMillis());
+
+        assertTrue(breaker.recordFailure());
+        assertEquals(2, breaker.getConsecutiveOpenings());
+        assertOpenFor(20);
+
+        breaker.halfOpen();
+        breaker.recordFailure();
+        assertOpenFor(40);
+
+        // limited by the maximal duration
+        breaker.halfOpen();
+        breaker.recordFailure();
+        assertEquals(4, breaker.getConsecutiveOpenings());
+        assertOpenFor(40);
+    }
+
+    @Test
+    public void successfulProbeClosesTheCircuit() {
+        breaker.trip();
+        breaker.halfOpen();
+
+        assertTrue(breaker.recordSuccess());
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveOpenings());
+        assertEquals(0, breaker.getRemainingOpenMillis());
+
+        // the next opening starts with the initial duration again
+        breaker.trip();
+        assertOpenFor(10);
+    }
+
+    @Test
+    public void tripOfAnOpenCircuitDoesNotExtendIt() {
+        breaker.trip();
+        breaker.trip();
+
+        assertEquals(1, breaker.getConsecutiveOpenings());
+        assertOpenFor(10);
+    }
+
+    @Test
+    public void halfOpenOfAClosedCircuitIsIgnored() {
+        breaker.halfOpen();
+
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.connector.HueSyncCommandQueue.CommandCallback;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Mode;
+
+/**
+ * Tests for {@link HueSyncCommandQueue}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncCommandQueueTest {
+
+    private static final long WINDOW_MILLIS = 50;
+
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+    private final BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+    private final List<String> completions = Collections.synchronizedList(new ArrayList<>());
+    private final HueSyncCommandQueue queue = new HueSyncCommandQueue(scheduler,
+            (command, body, onComplete) -> batches.add(
+                    new Batch(StandardCharsets.UTF_8.decode(body).toString(), onComplete)),
+            WINDOW_MILLIS);
+
+    private static class Batch {
+        private final String body;
+        private final CommandCallback onComplete;
+
+        Batch(String body, CommandCallback onComplete) {
+            this.body = body;
+            this.onComplete = onComplete;
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        queue.dispose();
+        scheduler.shutdownNow();
+    }
+
+    private Batch nextBatch() throws InterruptedException {
+        Batch batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        return batch;
+    }
+
+    private @Nullable Batch noBatch() throws InterruptedException {
+        return batches.poll(WINDOW_MILLIS * 3, TimeUnit.MILLISECONDS);
+    }
+
+    private CommandCallback completion(String name) {
+        return success -> completions.add(name + (success ? " ok" : " failed"));
+    }
+
+    @Test
+    public void commandsWithinTheWindowAreMerged() throws InterruptedException {
+        queue.put(new HueSyncExecutionCommand().withBrightness(10), completion("first"));
+        queue.put(new HueSyncExecutionCommand().withMode(Mode.GAME));
+        queue.put(new HueSyncExecutionCommand().withBrightness(30), completion("second"));
+        assertTrue(queue.isQueued(HueSyncChannel.BRIGHTNESS));
+        assertFalse(queue.isQueued(HueSyncChannel.POWER));
+
+        Batch batch = nextBatch();
+        assertEquals("{\"brightness\":30,\"mode\":\"game\"}", batch.body);
+        assertFalse(queue.isQueued(HueSyncChannel.BRIGHTNESS));
+        assertTrue(completions.isEmpty());
+
+        batch.onComplete.commandCompleted(true);
+
+        assertEquals(List.of("first ok", "second ok"), completions);
+        assertNull(noBatch());
+    }
+
+    @Test
+    public void commandsQueuedWhileInFlightAreSentTogetherAfterwards() throws InterruptedException {
+        queue.put(new HueSyncExecutionCommand().withHdmiActive(true), completion("first"));
+        Batch first = nextBatch();
+
+        queue.put(new HueSyncExecutionCommand().withSyncActive(true), completion("second"));
+        queue.put(new HueSyncExecutionCommand().withBrightness(200), completion("third"));
+        assertNull(noBatch());
+
+        first.onComplete.commandCompleted(false);
+        assertEquals(List.of("first failed"), completions);
+
+        Batch second = nextBatch();
+        assertEquals("{\"syncActive\":true,\"brightness\":200}", second.body);
+        second.onComplete.commandCompleted(true);
+
+        assertEquals(List.of("first failed", "second ok", "third ok"), completions);
+    }
+
+    @Test
+    public void disposeDiscardsQueuedCommands() throws InterruptedException {
+        queue.put(new HueSyncExecutionCommand().withHdmiActive(true), completion("sent"));
+        Batch batch = nextBatch();
+        queue.put(new HueSyncExecutionCommand().withBrightness(10), completion("queued"));
+
+        queue.dispose();
+
+        assertEquals(List.of("queued failed"), completions);
+        // a discarded command is reported by the caller, outside the lock of the queue
+        assertFalse(queue.put(new HueSyncExecutionCommand().withBrightness(20), completion("late")));
+        assertEquals(List.of("queued failed"), completions);
+
+        // the batch in flight still reports its result
+        batch.onComplete.commandCompleted(true);
+        assertEquals(List.of("queued failed", "sent ok"), completions);
+        assertNull(noBatch());
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncState;
+import org.openhab.binding.huesync.internal.RecordingStateChangedListener;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Input;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Intensity;
+import org.openhab.binding.huesync.internal.connector.HueSyncExecutionCommand.Mode;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+
+/**
+ * Tests for {@link HueSyncExecutionCommand}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncExecutionCommandTest {
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(HueSyncExecutionCommand.MAX_ENCODED_LENGTH);
+
+    private String encode(HueSyncExecutionCommand command) {
+        command.encode(buffer);
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    @Test
+    public void encodeEmptyCommand() {
+        assertEquals("{}", encode(new HueSyncExecutionCommand()));
+    }
+
+    @Test
+    public void encodeAllFields() {
+        HueSyncExecutionCommand command = new HueSyncExecutionCommand().withEntertainmentArea("7")
+                .withInput(Input.INPUT3).withIntensity(Intensity.HIGH).withMode(Mode.MUSIC).withBrightness(150)
+                .withSyncActive(true).withHdmiActive(false);
+
+        assertEquals("{\"hdmiActive\":false,\"syncActive\":true,\"brightness\":150,\"mode\":\"music\","
+                + "\"intensity\":\"high\",\"hdmiSource\":\"input3\",\"hueTarget\":\"groups/7\"}", encode(command));
+    }
+
+    @Test
+    public void encodeLongestCommandFitsIntoBuffer() {
+        HueSyncExecutionCommand command = new HueSyncExecutionCommand().withHdmiActive(false).withSyncActive(false)
+                .withBrightness(200).withMode(Mode.POWERSAVE).withIntensity(Intensity.MODERATE)
+                .withInput(Input.INPUT4)
+                .withEntertainmentArea("a".repeat(HueSyncExecutionCommand.MAX_ENTERTAINMENT_AREA_ID_LENGTH));
+
+        assertTrue(encode(command).endsWith("\"}"));
+    }
+
+    @Test
+    public void encodeClearsTheBuffer() {
+        encode(new HueSyncExecutionCommand().withMode(Mode.GAME).withInput(Input.INPUT1));
+
+        assertEquals("{\"syncActive\":true}", encode(new HueSyncExecutionCommand().withSyncActive(true)));
+    }
+
+    @Test
+    public void encodeBrightnessDigits() {
+        assertEquals("{\"brightness\":0}", encode(new HueSyncExecutionCommand().withBrightness(0)));
+        assertEquals("{\"brightness\":9}", encode(new HueSyncExecutionCommand().withBrightness(9)));
+        assertEquals("{\"brightness\":10}", encode(new HueSyncExecutionCommand().withBrightness(10)));
+        assertEquals("{\"brightness\":100}", encode(new HueSyncExecutionCommand().withBrightness(100)));
+        assertEquals("{\"brightness\":200}", encode(new HueSyncExecutionCommand().withBrightness(201)));
+        assertEquals("{\"brightness\":0}", encode(new HueSyncExecutionCommand().withBrightness(-5)));
+    }
+
+    @Test
+    public void mergeReplacesTheFieldsOfTheOtherCommand() {
+        HueSyncExecutionCommand command = new HueSyncExecutionCommand().withMode(Mode.VIDEO).withBrightness(20)
+                .withEntertainmentArea("1");
+        command.merge(new HueSyncExecutionCommand().withBrightness(40).withSyncActive(true)
+                .withEntertainmentArea("2"));
+
+        assertEquals(Mode.VIDEO, command.getMode());
+        assertEquals(40, command.getBrightness());
+        assertEquals(Boolean.TRUE, command.getSyncActive());
+        assertEquals("2", command.getEntertainmentArea());
+        assertEquals("{\"syncActive\":true,\"brightness\":40,\"mode\":\"video\",\"hueTarget\":\"groups/2\"}",
+                encode(command));
+    }
+
+    @Test
+    public void mergeEmptyCommandKeepsTheFields() {
+        HueSyncExecutionCommand command = new HueSyncExecutionCommand().withHdmiActive(true);
+        command.merge(new HueSyncExecutionCommand());
+
+        assertEquals(Boolean.TRUE, command.getHdmiActive());
+        assertTrue(command.contains(HueSyncChannel.POWER));
+        assertFalse(command.contains(HueSyncChannel.BRIGHTNESS));
+    }
+
+    @Test
+    public void clear() {
+        HueSyncExecutionCommand command = new HueSyncExecutionCommand().withHdmiActive(true).withBrightness(1)
+                .withEntertainmentArea("3");
+        assertFalse(command.isEmpty());
+
+        command.clear();
+
+        assertTrue(command.isEmpty());
+        assertEquals("{}", encode(command));
+    }
+
+    @Test
+    public void applyToSetsPendingValues() {
+        HueSyncState state = new HueSyncState(new RecordingStateChangedListener());
+        new HueSyncExecutionCommand().withHdmiActive(true).withBrightness(101).withIntensity(Intensity.SUBTLE)
+                .withEntertainmentArea("5").applyTo(state);
+        state.publish();
+
+        assertEquals(OnOffType.ON, state.getState(HueSyncChannel.POWER));
+        assertEquals(new PercentType(50), state.getState(HueSyncChannel.BRIGHTNESS));
+        assertEquals(StringType.valueOf("subtle"), state.getState(HueSyncChannel.INTENSITY));
+        assertEquals(StringType.valueOf("5"), state.getState(HueSyncChannel.ENTERTAINMENT_AREA));
+        assertNull(state.getState(HueSyncChannel.MODE));
+    }
+
+    @Test
+    public void unknownValuesAreRejected() {
+        assertNull(Mode.fromValue("passthrough"));
+        assertNull(Mode.fromValue("VIDEO"));
+        assertNull(Intensity.fromValue(""));
+        assertNull(Input.fromValue("input5"));
+        assertEquals(Mode.POWERSAVE, Mode.fromValue("powersave"));
+        assertEquals(Intensity.INTENSE, Intensity.fromValue("intense"));
+        assertEquals(Input.INPUT2, Input.fromValue("input2"));
+    }
+
+    @Test
+    public void invalidEntertainmentAreaIdsAreRejected() {
+        assertTrue(HueSyncExecutionCommand.isValidEntertainmentAreaId("200"));
+        assertTrue(HueSyncExecutionCommand.isValidEntertainmentAreaId("a-b_C"));
+        assertFalse(HueSyncExecutionCommand.isValidEntertainmentAreaId(""));
+        assertFalse(HueSyncExecutionCommand.isValidEntertainmentAreaId("7\",\"hdmiActive\":false"));
+        assertFalse(HueSyncExecutionCommand.isValidEntertainmentAreaId("groups/7"));
+        assertFalse(HueSyncExecutionCommand.isValidEntertainmentAreaId(
+                "a".repeat(HueSyncExecutionCommand.MAX_ENTERTAINMENT_AREA_ID_LENGTH + 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HueSyncExecutionCommand().withEntertainmentArea("\u00fc"));
+    }
+
+    @Test
+    public void toEntertainmentAreaId() {
+        assertEquals("7", HueSyncExecutionCommand.toEntertainmentAreaId("groups/7"));
+        assertEquals("7", HueSyncExecutionCommand.toEntertainmentAreaId("7"));
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.openhab.binding.huesync.internal.HueSyncState;
+import org.openhab.binding.huesync.internal.HueSyncStateSnapshot;
+import org.openhab.binding.huesync.internal.RecordingStateChangedListener;
+import org.openhab.binding.huesync.internal.config.HueSyncConfiguration;
+import org.openhab.binding.huesync.internal.metrics.HueSyncLatencyHistogram;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics;
+import org.openhab.binding.huesync.internal.metrics.HueSyncMetrics.RequestType;
+
+/**
+ * The {@link HueSyncLoadDriver} runs hundreds of simulated things against the {@link HueSyncBoxSimulator} and
+ * reports the throughput, the latency of polls and commands and the occupancy of the scheduler threads.
+ *
+ * A simulated thing wires a connector the way the handler does: it has its own state, circuit breaker and rate
+ * limiter, and shares the http client, polling coordinator, pairing service and schedulers with all other things.
+ * The handler itself needs a running openHAB, so updating the channels is not part of the load. The metrics are
+ * shared by all things, so they hold the totals.
+ *
+ * The driver is no unit test, it is run from the test classpath:
+ *
+ * <pre>
+ * java HueSyncLoadDriver [things=200] [seconds=60] [pollingInterval=5] [commandInterval=10] [latencyMillis=20]
+ * </pre>
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncLoadDriver {
+
+    // The size of the scheduled thread pools of openHAB
+    private static final int SCHEDULER_THREADS = 5;
+    // As in the HueSyncHandlerFactory
+    private static final int MAX_CONCURRENT_POLLS = 4;
+    private static final int HTTP_MAX_CONNECTIONS_PER_BOX = 2;
+    private static final int HTTP_MAX_QUEUED_REQUESTS_PER_BOX = 32;
+
+    /**
+     * A scheduler measuring the time its threads spend running tasks
+     */
+    private static class MeasuredScheduler extends ScheduledThreadPoolExecutor {
+        private final ThreadLocal<Long> started = new ThreadLocal<>();
+        private final LongAdder busyNanos = new LongAdder();
+        private final AtomicLong maxTaskNanos = new AtomicLong();
+
+        MeasuredScheduler(int threads) {
+            super(threads);
+        }
+
+        @Override
+        protected void beforeExecute(@Nullable Thread thread, @Nullable Runnable task) {
+            started.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(@Nullable Runnable task, @Nullable Throwable error) {
+            Long start = started.get();
+            if (start != null) {
+                long nanos = System.nanoTime() - start;
+                busyNanos.add(nanos);
+                maxTaskNanos.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        String occupancy(long elapsedNanos) {
+            return String.format(Locale.ROOT, "%.2f%% of %d threads, longest task %.1fms",
+                    100.0 * busyNanos.sum() / ((double) getCorePoolSize() * elapsedNanos), getCorePoolSize(),
+                    maxTaskNanos.get() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * The connector of a thing with the state it reports to
+     */
+    private class SimulatedThing {
+        private final RecordingStateChangedListener listener = new RecordingStateChangedListener();
+        private final HueSyncState state = new HueSyncState(listener);
+        private final HueSyncApiConnector connector;
+
+        SimulatedThing(HueSyncConfiguration config, HueSyncPollingCoordinator pollingCoordinator,
+                HueSyncPairingService pairingService) {
+            connector = new HueSyncApiConnector(config, state, thingScheduler, httpClient, pollingCoordinator,
+                    pairingService,
+                    new HueSyncCircuitBreaker(config.failureThreshold, config.circuitOpenDuration,
+                            config.maxCircuitOpenDuration),
+                    new HueSyncRateLimiter(thingScheduler, config.requestRate, config.requestBurst), metrics);
+        }
+
+        void sendCommand() {
+            long start = System.nanoTime();
+            int brightness = ThreadLocalRandom.current().nextInt(201);
+            connector.queueCommand(new HueSyncExecutionCommand().withBrightness(brightness), success -> {
+                if (success) {
+                    commandLatency.record(System.nanoTime() - start);
+                } else {
+                    failedCommands.incrementAndGet();
+                }
+            });
+        }
+
+        boolean isConnected() {
+            HueSyncStateSnapshot snapshot = state.getSnapshot();
+            return snapshot.getVersion() > 0 && !snapshot.isStale();
+        }
+    }
+
+    private final HueSyncBoxSimulator simulator = new HueSyncBoxSimulator();
+    // The scheduler of the thing handlers and the scheduler of the binding
+    private final MeasuredScheduler thingScheduler = new MeasuredScheduler(SCHEDULER_THREADS);
+    private final MeasuredScheduler bindingScheduler = new MeasuredScheduler(SCHEDULER_THREADS);
+    // Sends the commands, like the threads of openHAB calling the handlers
+    private final ScheduledExecutorService commandSender = new ScheduledThreadPoolExecutor(1);
+    private final HttpClient httpClient = new HttpClient(new SslContextFactory.Client(true));
+    private final HueSyncMetrics metrics = new HueSyncMetrics();
+    private final HueSyncLatencyHistogram commandLatency = new HueSyncLatencyHistogram();
+    private final AtomicLong failedCommands = new AtomicLong();
+    private final List<SimulatedThing> things = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        int things = argument(args, 0, 200);
+        int seconds = argument(args, 1, 60);
+        int pollingInterval = argument(args, 2, 5);
+        int commandInterval = argument(args, 3, 10);
+        int latencyMillis = argument(args, 4, 20);
+        new HueSyncLoadDriver().run(things, seconds, pollingInterval, commandInterval, latencyMillis);
+        System.exit(0);
+    }
+
+    private static int argument(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private void run(int thingCount, int seconds, int pollingInterval, int commandInterval, int latencyMillis)
+            throws Exception {
+        simulator.start(thingCount);
+        simulator.setLatency(latencyMillis);
+        httpClient.setMaxConnectionsPerDestination(HTTP_MAX_CONNECTIONS_PER_BOX);
+        httpClient.setMaxRequestsQueuedPerDestination(HTTP_MAX_QUEUED_REQUESTS_PER_BOX);
+        httpClient.start();
+        HueSyncPollingCoordinator pollingCoordinator = new HueSyncPollingCoordinator(bindingScheduler,
+                MAX_CONCURRENT_POLLS);
+        HueSyncPairingService pairingService = new HueSyncPairingService(httpClient, bindingScheduler);
+
+        long start = System.nanoTime();
+        for (String host : simulator.getHosts()) {
+            HueSyncConfiguration config = new HueSyncConfiguration();
+            config.setHost(host);
+            config.setApiAccessToken(HueSyncBoxSimulator.API_ACCESS_TOKEN);
+            config.httpPollingInterval = pollingInterval;
+            SimulatedThing thing = new SimulatedThing(config, pollingCoordinator, pairingService);
+            things.add(thing);
+            thing.connector.createConnection(null, null);
+            if (commandInterval > 0) {
+                // spread the commands of the things over the interval
+                long intervalMillis = TimeUnit.SECONDS.toMillis(commandInterval);
+                commandSender.scheduleAtFixedRate(thing::sendCommand,
+                        ThreadLocalRandom.current().nextLong(intervalMillis), intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        commandSender.shutdownNow();
+        long elapsedNanos = System.nanoTime() - start;
+        report(elapsedNanos);
+
+        for (SimulatedThing thing : things) {
+            thing.connector.dispose();
+        }
+        pairingService.dispose();
+        thingScheduler.shutdownNow();
+        bindingScheduler.shutdownNow();
+        httpClient.stop();
+        simulator.stop();
+    }
+
+    private void report(long elapsedNanos) {
+        long requests = 0;
+        for (RequestType type : RequestType.values()) {
+            requests += metrics.getRequestLatency(type).getCount();
+        }
+        long connected = things.stream().filter(SimulatedThing::isConnected).count();
+        long shedPolls = things.stream().mapToLong(thing -> thing.connector.getShedPolls()).sum();
+        long delayedCommands = things.stream().mapToLong(thing -> thing.connector.getDelayedCommands()).sum();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+
+        System.out.printf(Locale.ROOT, "things:            %d, %d connected after %.0fs%n", things.size(), connected,
+                seconds);
+        System.out.printf(Locale.ROOT, "throughput:        %.1f requests/s, %d requests, %d errors, %d timeouts%n",
+                requests / seconds, requests, metrics.getErrors(), metrics.getTimeouts());
+        System.out.printf(Locale.ROOT, "poll latency:      %s%n", metrics.getRequestLatency(RequestType.STATE).summary());
+        System.out.printf(Locale.ROOT, "command latency:   %s%n",
+                metrics.getRequestLatency(RequestType.EXECUTION).summary());
+        System.out.printf(Locale.ROOT, "command to ack:    %s, %d failed%n", commandLatency.summary(),
+                failedCommands.get());
+        System.out.printf(Locale.ROOT, "rate limiter:      %d polls shed, %d commands delayed%n", shedPolls,
+                delayedCommands);
+        System.out.printf(Locale.ROOT, "thing scheduler:   %s%n", thingScheduler.occupancy(elapsedNanos));
+        System.out.printf(Locale.ROOT, "binding scheduler: %s%n", bindingScheduler.occupancy(elapsedNanos));
+    }
+}
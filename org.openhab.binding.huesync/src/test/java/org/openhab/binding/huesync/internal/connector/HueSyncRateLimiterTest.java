@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link HueSyncRateLimiter}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncRateLimiterTest {
+
+    // a rate which does not refill the bucket noticeably while a test runs
+    private static final double NO_REFILL = 0.001;
+
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private Runnable event(String name) {
+        return () -> events.add(name);
+    }
+
+    @Test
+    public void pollKeepsATokenInReserve() {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, NO_REFILL, 4);
+
+        assertTrue(limiter.tryAcquirePoll(2));
+        assertFalse(limiter.tryAcquirePoll(2));
+        assertTrue(limiter.tryAcquirePoll(1));
+        assertFalse(limiter.tryAcquirePoll(1));
+
+        assertEquals(2, limiter.getShedPolls());
+
+        // the reserved token is left for a command
+        limiter.acquireCommand(event("command"), event("rejected"));
+        assertEquals(List.of("command"), events);
+        assertEquals(0, limiter.getDelayedCommands());
+    }
+
+    @Test
+    public void pollLargerThanTheBucketNeedsNoReserve() {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, NO_REFILL, 2);
+
+        assertTrue(limiter.tryAcquirePoll(2));
+        assertFalse(limiter.tryAcquirePoll(1));
+    }
+
+    @Test
+    public void pollLargerThanTheBurstIsNotShedForever() {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, 10, 1);
+
+        // three sections are due, but the bucket holds a single token
+        assertTrue(limiter.tryAcquirePoll(3));
+        assertEquals(0, limiter.getShedPolls());
+
+        // the overdrawn bucket delays the next poll until it has been refilled
+        assertFalse(limiter.tryAcquirePoll(3));
+        long delay = limiter.getPollDelayMillis(3);
+        assertTrue(delay > 0 && delay <= 300, "delay " + delay);
+    }
+
+    @Test
+    public void pollIsShedWhileCommandsAreWaiting() {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, NO_REFILL, 2);
+        limiter.consume();
+        limiter.consume();
+        limiter.acquireCommand(event("command"), event("rejected"));
+
+        assertFalse(limiter.tryAcquirePoll(1));
+        assertEquals(1, limiter.getShedPolls());
+        assertEquals(1, limiter.getDelayedCommands());
+        assertTrue(limiter.getPollDelayMillis(1) > 0);
+    }
+
+    @Test
+    public void waitingCommandsAreSentInOrder() throws InterruptedException {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, 50, 1);
+        CountDownLatch sent = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            String name = "command" + i;
+            limiter.acquireCommand(() -> {
+                events.add(name);
+                sent.countDown();
+            }, event("rejected"));
+        }
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("command0", "command1", "command2", "command3", "command4"), events);
+        assertEquals(4, limiter.getDelayedCommands());
+    }
+
+    @Test
+    public void disposeRejectsWaitingCommands() {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, NO_REFILL, 1);
+        limiter.acquireCommand(event("command1"), event("rejected1"));
+        limiter.acquireCommand(event("command2"), event("rejected2"));
+        limiter.acquireCommand(event("command3"), event("rejected3"));
+
+        limiter.dispose();
+        limiter.acquireCommand(event("command4"), event("rejected4"));
+
+        assertEquals(List.of("command1", "rejected2", "rejected3", "rejected4"), events);
+    }
+
+    @Test
+    public void rejectedCommandsLeaveTheBucketEmpty() {
+        HueSyncRateLimiter limiter = new HueSyncRateLimiter(scheduler, NO_REFILL, 1);
+        limiter.acquireCommand(event("command1"), event("rejected1"));
+        limiter.acquireCommand(event("command2"), event("rejected2"));
+
+        // the connection is closed, a new one shares the limiter
+        limiter.rejectWaitingCommands();
+        assertFalse(limiter.tryAcquirePoll(1));
+        limiter.acquireCommand(event("command3"), event("rejected3"));
+
+        assertEquals(List.of("command1", "rejected2"), events);
+        assertEquals(2, limiter.getDelayedCommands());
+    }
+}
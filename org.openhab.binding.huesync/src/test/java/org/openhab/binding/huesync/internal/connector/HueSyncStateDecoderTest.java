@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.connector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.huesync.internal.HueSyncChannel;
+import org.openhab.binding.huesync.internal.HueSyncDeviceInfo;
+import org.openhab.binding.huesync.internal.HueSyncEntertainmentAreas;
+import org.openhab.binding.huesync.internal.HueSyncState;
+import org.openhab.binding.huesync.internal.RecordingStateChangedListener;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Tests for {@link HueSyncStateDecoder}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncStateDecoderTest {
+
+    private final HueSyncStateDecoder decoder = new HueSyncStateDecoder();
+    private HueSyncState state = new HueSyncState(new RecordingStateChangedListener());
+
+    @BeforeEach
+    public void setUp() {
+        state = new HueSyncState(new RecordingStateChangedListener());
+    }
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new StringReader(json));
+    }
+
+    @Test
+    public void decodeExecution() throws IOException {
+        decoder.decodeExecution(reader("{\"mode\":\"video\",\"hdmiActive\":true,\"syncActive\":false,"
+                + "\"hdmiSource\":\"input2\",\"brightness\":101,\"hueTarget\":\"groups/7\","
+                + "\"video\":{\"intensity\":\"high\",\"backgroundLighting\":false},"
+                + "\"music\":{\"intensity\":\"subtle\",\"palette\":\"happyEnergetic\"}}"), state);
+        state.publishPolled();
+
+        assertEquals(StringType.valueOf("video"), state.getState(HueSyncChannel.MODE));
+        assertEquals(OnOffType.ON, state.getState(HueSyncChannel.POWER));
+        assertEquals(OnOffType.OFF, state.getState(HueSyncChannel.SYNC_STATUS));
+        assertEquals(StringType.valueOf("input2"), state.getState(HueSyncChannel.INPUT));
+        assertEquals(new PercentType(50), state.getState(HueSyncChannel.BRIGHTNESS));
+        assertEquals(StringType.valueOf("7"), state.getState(HueSyncChannel.ENTERTAINMENT_AREA));
+        assertEquals(StringType.valueOf("high"), state.getState(HueSyncChannel.INTENSITY));
+    }
+
+    @Test
+    public void decodeExecutionTakesTheIntensityOfTheModeReadAfterwards() throws IOException {
+        decoder.decodeExecution(reader("{\"music\":{\"intensity\":\"subtle\"},\"game\":{\"intensity\":\"intense\"},"
+                + "\"mode\":\"game\"}"), state);
+        state.publishPolled();
+
+        assertEquals(StringType.valueOf("intense"), state.getState(HueSyncChannel.INTENSITY));
+    }
+
+    @Test
+    public void decodeExecutionSkipsUnknownMembers() throws IOException {
+        decoder.decodeExecution(reader("{\"lastSyncMode\":\"video\",\"preset\":null,\"ir\":[1,2,{\"a\":3}],"
+                + "\"hueTarget\":null,\"syncActive\":true,\"future\":{\"nested\":{\"deep\":true}}}"), state);
+        state.publishPolled();
+
+        assertEquals(OnOffType.ON, state.getState(HueSyncChannel.SYNC_STATUS));
+        assertNull(state.getState(HueSyncChannel.ENTERTAINMENT_AREA));
+        assertNull(state.getState(HueSyncChannel.INTENSITY));
+    }
+
+    @Test
+    public void decodeExecutionKeepsUnknownValues() throws IOException {
+        // values which are not known yet are shown as reported, they are only rejected as commands
+        decoder.decodeExecution(reader("{\"mode\":\"passthrough\",\"hdmiSource\":\"input9\"}"), state);
+        state.publishPolled();
+
+        assertEquals(StringType.valueOf("passthrough"), state.getState(HueSyncChannel.MODE));
+        assertEquals(StringType.valueOf("input9"), state.getState(HueSyncChannel.INPUT));
+    }
+
+    @Test
+    public void decodeExecutionFailsOnMalformedDocument() {
+        assertThrows(IOException.class, () -> decoder.decodeExecution(reader("{\"mode\":\"video\""), state));
+        assertThrows(IllegalStateException.class,
+                () -> decoder.decodeExecution(reader("{\"hdmiActive\":\"yes\"}"), state));
+    }
+
+    @Test
+    public void decodeHdmi() throws IOException {
+        decoder.decodeHdmi(reader("{\"input1\":{\"name\":\"Apple TV\",\"type\":\"generic\",\"status\":\"connected\","
+                + "\"lastSyncMode\":\"video\"},\"input4\":{\"name\":\"Console\"},"
+                + "\"output\":{\"name\":\"TV\",\"type\":\"tv\",\"status\":\"plugged\",\"lastSyncMode\":\"game\"},"
+                + "\"contentSpecs\":\"3840 x 2160 @ 60000 - HDR10\",\"videoSyncSupported\":true}"), state);
+        state.publishPolled();
+
+        assertEquals(StringType.valueOf("Apple TV"), state.getState(HueSyncChannel.PORT_NAME[1]));
+        assertEquals(StringType.valueOf("generic"), state.getState(HueSyncChannel.PORT_TYPE[1]));
+        assertEquals(StringType.valueOf("connected"), state.getState(HueSyncChannel.PORT_STATUS[1]));
+        assertEquals(StringType.valueOf("video"), state.getState(HueSyncChannel.PORT_LASTMODE[1]));
+        assertEquals(StringType.valueOf("Console"), state.getState(HueSyncChannel.PORT_NAME[4]));
+        assertNull(state.getState(HueSyncChannel.PORT_TYPE[4]));
+        assertEquals(StringType.valueOf("TV"), state.getState(HueSyncChannel.PORT_NAME[0]));
+        assertEquals(StringType.valueOf("game"), state.getState(HueSyncChannel.PORT_LASTMODE[0]));
+    }
+
+    @Test
+    public void decodeDeviceInfo() throws IOException {
+        HueSyncDeviceInfo info = decoder.decodeDeviceInfo(reader("{\"name\":\"Living room\","
+                + "\"deviceType\":\"HSB1\",\"uniqueId\":\"C42996000000\",\"apiLevel\":7,\"firmwareVersion\":\"1.12.0\","
+                + "\"wifi\":{\"ssid\":\"home\",\"strength\":4},\"ledMode\":1,\"update\":null,"
+                + "\"capabilities\":{\"maxIrCodes\":16,\"maxPresets\":16,\"future\":[1]}}"));
+
+        assertEquals("Living room", info.getName());
+        assertEquals("HSB1", info.getDeviceType());
+        assertEquals("C42996000000", info.getUniqueId());
+        assertEquals("1.12.0", info.getFirmwareVersion());
+        assertEquals(7, info.getApiLevel());
+        assertEquals(16, info.getMaxIrCodes());
+        assertEquals(16, info.getMaxPresets());
+    }
+
+    @Test
+    public void decodeDeviceInfoWithMissingValues() throws IOException {
+        HueSyncDeviceInfo info = decoder.decodeDeviceInfo(reader("{\"name\":\"Box\"}"));
+
+        assertEquals("Box", info.getName());
+        assertEquals("", info.getFirmwareVersion());
+        assertEquals(0, info.getApiLevel());
+    }
+
+    @Test
+    public void decodeEntertainmentAreas() throws IOException {
+        HueSyncEntertainmentAreas areas = decoder.decodeEntertainmentAreas(reader("{\"bridgeUniqueId\":\"001788\","
+                + "\"connectionState\":\"connected\",\"groups\":{\"7\":{\"name\":\"TV area\",\"numLights\":3},"
+                + "\"9\":{\"numLights\":1}}}"));
+
+        assertEquals("001788", areas.getBridgeUniqueId());
+        assertEquals(2, areas.getNames().size());
+        assertEquals("TV area", areas.getNames().get("7"));
+        // a group without name is labelled with its id
+        assertEquals("9", areas.getNames().get("9"));
+        assertTrue(areas.contains("7"));
+        assertFalse(areas.contains("8"));
+    }
+
+    @Test
+    public void decoderIsReusable() throws IOException {
+        decoder.decodeExecution(reader("{\"mode\":\"music\",\"music\":{\"intensity\":\"subtle\"}}"), state);
+        decoder.decodeExecution(reader("{\"mode\":\"video\",\"game\":{}}"), state);
+        state.publishPolled();
+
+        // the mode settings of the previous document are not applied to the new mode, so the intensity decoded
+        // before is kept
+        assertEquals(StringType.valueOf("video"), state.getState(HueSyncChannel.MODE));
+        assertEquals(StringType.valueOf("subtle"), state.getState(HueSyncChannel.INTENSITY));
+    }
+}
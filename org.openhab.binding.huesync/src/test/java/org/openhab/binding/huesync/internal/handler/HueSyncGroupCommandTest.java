@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2023 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.huesync.internal.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.huesync.internal.connector.HueSyncCommandQueue.CommandCallback;
+
+/**
+ * Tests for {@link HueSyncGroupCommand}.
+ *
+ * @author Marco Kawon - Initial contribution
+ */
+@NonNullByDefault
+public class HueSyncGroupCommandTest {
+
+    private static final long NO_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+    private final List<HueSyncHandler> members = List.of(mock(HueSyncHandler.class), mock(HueSyncHandler.class),
+            mock(HueSyncHandler.class));
+    private final List<CommandCallback> dispatched = Collections.synchronizedList(new ArrayList<>());
+    private final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private HueSyncGroupCommand create(List<HueSyncHandler> members, int unavailable, int maxConcurrency) {
+        return new HueSyncGroupCommand(members, unavailable, maxConcurrency,
+                (member, callback) -> dispatched.add(callback),
+                (succeeded, failed, durationNanos) -> results.add(succeeded + "/" + failed));
+    }
+
+    @Test
+    public void dispatchesAtMostMaxConcurrencyBoxes() {
+        create(members, 0, 2).start(scheduler, NO_TIMEOUT);
+        assertEquals(2, dispatched.size());
+
+        dispatched.get(0).commandCompleted(true);
+        assertEquals(3, dispatched.size());
+        assertTrue(results.isEmpty());
+
+        dispatched.get(1).commandCompleted(false);
+        dispatched.get(2).commandCompleted(true);
+
+        assertEquals(List.of("2/1"), new ArrayList<>(results));
+    }
+
+    @Test
+    public void unavailableBoxesAreCountedAsFailed() {
+        create(members.subList(0, 1), 2, 4).start(scheduler, NO_TIMEOUT);
+        dispatched.get(0).commandCompleted(true);
+
+        assertEquals(List.of("1/2"), new ArrayList<>(results));
+    }
+
+    @Test
+    public void completesImmediatelyWithoutAvailableBoxes() {
+        create(List.of(), 2, 4).start(scheduler, NO_TIMEOUT);
+
+        assertTrue(dispatched.isEmpty());
+        assertEquals(List.of("0/2"), new ArrayList<>(results));
+    }
+
+    @Test
+    public void repeatedCompletionOfABoxIsIgnored() {
+        create(members.subList(0, 2), 0, 1).start(scheduler, NO_TIMEOUT);
+        dispatched.get(0).commandCompleted(true);
+        dispatched.get(0).commandCompleted(false);
+        dispatched.get(0).commandCompleted(true);
+
+        assertEquals(2, dispatched.size());
+        assertTrue(results.isEmpty());
+
+        dispatched.get(1).commandCompleted(true);
+        assertEquals(List.of("2/0"), new ArrayList<>(results));
+    }
+
+    @Test
+    public void timeoutCountsTheRemainingBoxesAsFailed() throws InterruptedException {
+        create(members, 0, 1).start(scheduler, 50);
+        dispatched.get(0).commandCompleted(true);
+
+        assertEquals("1/2", results.poll(5, TimeUnit.SECONDS));
+
+        // boxes completing after the timeout neither start the next box nor report again
+        int dispatchedBefore = dispatched.size();
+        dispatched.get(dispatchedBefore - 1).commandCompleted(true);
+        assertEquals(dispatchedBefore, dispatched.size());
+        assertNull(results.poll(100, TimeUnit.MILLISECONDS));
+    }
+}